@@ -0,0 +1,90 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.collection;
+
+import lombok.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A small, thread-safe, size bounded cache that evicts the least recently used entry.
+ * <p>
+ * Meant for memoizing pure functions of strings (formatting, templates, ...) where the
+ * same inputs come back over and over but the set of inputs is unbounded.
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the values
+ */
+public final class LruCache<K, V> {
+
+    private final int maxSize;
+    private final LinkedHashMap<K, V> entries;
+
+    public LruCache(final int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<K, V>(Math.min(maxSize, 256), 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(@NonNull final K key) {
+        return this.entries.get(key);
+    }
+
+    public synchronized void put(@NonNull final K key, @NonNull final V value) {
+        this.entries.put(key, value);
+    }
+
+    /**
+     * Returns the cached value, or computes and caches it. The function runs outside the lock,
+     * so two threads may compute the same key at once; the function should be side effect free.
+     */
+    public V computeIfAbsent(@NonNull final K key, @NonNull final Function<? super K, ? extends V> function) {
+        final V cached = get(key);
+        if (cached != null) return cached;
+
+        final V value = function.apply(key);
+        if (value != null) put(key, value);
+
+        return value;
+    }
+
+    public synchronized void remove(@NonNull final K key) {
+        this.entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+}
@@ -21,9 +21,11 @@ package ca.tweetzy.flight.collection.expiringmap;
 
 import ca.tweetzy.flight.collection.expiringmap.internal.Assert;
 import ca.tweetzy.flight.collection.expiringmap.internal.NamedThreadFactory;
+import ca.tweetzy.flight.collection.expiringmap.internal.TimerWheel;
 
 import java.lang.ref.WeakReference;
 import java.util.AbstractCollection;
+import java.util.AbstractMap;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -35,6 +37,8 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -44,11 +48,15 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 /**
  * A thread-safe map that expires entries. Optional features include expiration policies, variable entry expiration,
@@ -66,6 +74,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * variable expiration is enabled, put/remove operations have time complexity of <i>O(log n)</i>.
  *
  * <p>
+ * Maps built with {@link Builder#concurrent()} keep their entries in a {@link ConcurrentHashMap} so reads never lock.
+ * Accesses under {@link ExpirationPolicy#ACCESSED} are buffered and replayed against the expiration order by the next
+ * writer or expirer tick, and entries are expired by a {@link TimerWheel} instead of a scheduled task per entry.
+ *
+ * <p>
  * Example usages:
  *
  * <pre>
@@ -98,6 +111,16 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
     static volatile ThreadPoolExecutor LISTENER_SERVICE;
     static ThreadFactory THREAD_FACTORY;
 
+    /**
+     * Buffered accesses after which a replay is queued on the expirer
+     */
+    static final int ACCESS_DRAIN_THRESHOLD = 64;
+    /**
+     * Buffered accesses after which new ones are dropped until the buffer is drained
+     */
+    static final int ACCESS_BUFFER_LIMIT = 16 * 1024;
+    static final int TIMER_WHEEL_BUCKETS = 512;
+
     List<ExpirationListener<K, V>> expirationListeners;
     List<ExpirationListener<K, V>> asyncExpirationListeners;
     private AtomicLong expirationNanos;
@@ -113,6 +136,21 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
      */
     private final EntryMap<K, V> entries;
     private final boolean variableExpiration;
+    private final boolean concurrent;
+    /**
+     * Accesses that still have to be replayed against the expiration order, only used by concurrent maps
+     */
+    private final ConcurrentLinkedQueue<ExpiringEntry<K, V>> accessBuffer;
+    private final AtomicInteger bufferedAccesses;
+    private final AtomicBoolean drainScheduled;
+    /**
+     * Guarded by "readWriteLock", only used by concurrent maps
+     */
+    private final TimerWheel<ExpiringEntry<K, V>> timerWheel;
+    /**
+     * Guarded by "readWriteLock"
+     */
+    private Ticker ticker;
 
     /**
      * Sets the {@link ThreadFactory} that is used to create expiration and listener callback threads for all ExpiringMap
@@ -145,7 +183,9 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
             initListenerService();
 
         variableExpiration = builder.variableExpiration;
-        entries = variableExpiration ? new EntryTreeHashMap<K, V>() : new EntryLinkedHashMap<K, V>();
+        concurrent = builder.concurrent;
+        entries = concurrent ? new EntryConcurrentMap<K, V>(variableExpiration)
+                : variableExpiration ? new EntryTreeHashMap<K, V>() : new EntryLinkedHashMap<K, V>();
         if (builder.expirationListeners != null)
             expirationListeners = new CopyOnWriteArrayList<ExpirationListener<K, V>>(builder.expirationListeners);
         if (builder.asyncExpirationListeners != null)
@@ -155,6 +195,21 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         maxSize = builder.maxSize;
         entryLoader = builder.entryLoader;
         expiringEntryLoader = builder.expiringEntryLoader;
+
+        if (concurrent) {
+            accessBuffer = new ConcurrentLinkedQueue<ExpiringEntry<K, V>>();
+            bufferedAccesses = new AtomicInteger();
+            drainScheduled = new AtomicBoolean();
+            // reads check the exact deadline, the tick only bounds how late listeners hear about an expiration
+            long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(10),
+                    Math.min(expirationNanos.get() / 32, TimeUnit.SECONDS.toNanos(1)));
+            timerWheel = new TimerWheel<ExpiringEntry<K, V>>(tickNanos, TIMER_WHEEL_BUCKETS, System.nanoTime());
+        } else {
+            accessBuffer = null;
+            bufferedAccesses = null;
+            drainScheduled = null;
+            timerWheel = null;
+        }
     }
 
     /**
@@ -167,6 +222,7 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         private List<ExpirationListener<K, V>> asyncExpirationListeners;
         private TimeUnit timeUnit = TimeUnit.SECONDS;
         private boolean variableExpiration;
+        private boolean concurrent;
         private long duration = 60;
         private int maxSize = Integer.MAX_VALUE;
         private EntryLoader<K, V> entryLoader;
@@ -343,6 +399,19 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
             return this;
         }
 
+        /**
+         * Backs the map by a {@link ConcurrentHashMap} so reads never take a lock. Accesses under
+         * {@link ExpirationPolicy#ACCESSED} are buffered and replayed later, and entries are expired by a timer wheel.
+         * Expired entries are never returned, but listeners may be notified up to one wheel tick late and {@link #size()}
+         * keeps counting them until then.
+         *
+         * @since 3.24.0
+         */
+        public Builder<K, V> concurrent() {
+            concurrent = true;
+            return this;
+        }
+
         private void assertNoLoaderSet() {
             Assert.state(entryLoader == null && expiringEntryLoader == null,
                     "Either entryLoader or expiringEntryLoader may be set, not both");
@@ -540,10 +609,161 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         }
     }
 
+    /**
+     * Entry map for concurrent ExpiringMaps. Lookups go to a {@link ConcurrentHashMap} and never lock, while the
+     * expiration order is kept in a second entry map that is only touched under the map's write lock.
+     */
+    private static class EntryConcurrentMap<K, V> extends AbstractMap<K, ExpiringEntry<K, V>> implements EntryMap<K, V> {
+        final ConcurrentHashMap<K, ExpiringEntry<K, V>> data = new ConcurrentHashMap<K, ExpiringEntry<K, V>>();
+        /**
+         * Guarded by the map's write lock
+         */
+        private final EntryMap<K, V> order;
+
+        EntryConcurrentMap(boolean variableExpiration) {
+            order = variableExpiration ? new EntryTreeHashMap<K, V>() : new EntryLinkedHashMap<K, V>();
+        }
+
+        @Override
+        public void clear() {
+            order.clear();
+            data.clear();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return data.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            long now = System.nanoTime();
+            for (ExpiringEntry<K, V> entry : data.values()) {
+                // past its deadline but not swept by the timer wheel yet
+                if (entry.deadline() <= now)
+                    continue;
+                V v = entry.value;
+                if (v == value || (value != null && value.equals(v)))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Set<Map.Entry<K, ExpiringEntry<K, V>>> entrySet() {
+            return data.entrySet();
+        }
+
+        @Override
+        public ExpiringEntry<K, V> get(Object key) {
+            return data.get(key);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return data.isEmpty();
+        }
+
+        @Override
+        public ExpiringEntry<K, V> put(K key, ExpiringEntry<K, V> value) {
+            order.put(key, value);
+            return data.put(key, value);
+        }
+
+        @Override
+        public ExpiringEntry<K, V> remove(Object key) {
+            order.remove(key);
+            return data.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return data.size();
+        }
+
+        @Override
+        public ExpiringEntry<K, V> first() {
+            return order.first();
+        }
+
+        @Override
+        public void reorder(ExpiringEntry<K, V> value) {
+            order.reorder(value);
+        }
+
+        /**
+         * Moves the entry to the deadline of its buffered access, unlike {@link #reorder(ExpiringEntry)} which restarts
+         * the expiration at the time of the call.
+         */
+        void replayAccess(ExpiringEntry<K, V> value) {
+            order.remove(value.key);
+            value.applyPendingExpiration();
+            order.put(value.key, value);
+        }
+
+        @Override
+        public Iterator<ExpiringEntry<K, V>> valuesIterator() {
+            return order.valuesIterator();
+        }
+    }
+
+    /**
+     * Iterates the entries of a concurrent map without locking, skipping entries that already expired.
+     */
+    abstract class ConcurrentHashIterator {
+        private final Iterator<ExpiringEntry<K, V>> iterator = ((EntryConcurrentMap<K, V>) entries).data.values().iterator();
+        private ExpiringEntry<K, V> next;
+        private ExpiringEntry<K, V> current;
+
+        public boolean hasNext() {
+            while (next == null && iterator.hasNext()) {
+                ExpiringEntry<K, V> entry = iterator.next();
+                if (!isExpired(entry, System.nanoTime()))
+                    next = entry;
+            }
+            return next != null;
+        }
+
+        public ExpiringEntry<K, V> getNext() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            current = next;
+            next = null;
+            return current;
+        }
+
+        public void remove() {
+            Assert.state(current != null, "next() has not been called");
+            ExpiringMap.this.remove(current.key);
+            current = null;
+        }
+    }
+
+    final class ConcurrentKeyIterator extends ConcurrentHashIterator implements Iterator<K> {
+        public final K next() {
+            return getNext().key;
+        }
+    }
+
+    final class ConcurrentValueIterator extends ConcurrentHashIterator implements Iterator<V> {
+        public final V next() {
+            return getNext().value;
+        }
+    }
+
+    final class ConcurrentEntryIterator extends ConcurrentHashIterator implements Iterator<Map.Entry<K, V>> {
+        public final Map.Entry<K, V> next() {
+            return mapEntryFor(getNext());
+        }
+    }
+
     /**
      * Expiring map entry implementation.
      */
     static class ExpiringEntry<K, V> implements Comparable<ExpiringEntry<K, V>> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<ExpiringEntry> PENDING_EXPIRATION = AtomicLongFieldUpdater.newUpdater(ExpiringEntry.class, "pendingExpiration");
+
         final AtomicLong expirationNanos;
         /**
          * Epoch time at which the entry is expected to expire
@@ -556,13 +776,21 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
          */
         volatile Future<?> entryFuture;
         /**
-         * Guarded by "this"
+         * Written under "this", read without locking
          */
-        V value;
+        volatile V value;
         /**
          * Guarded by "this"
          */
         volatile boolean scheduled;
+        /**
+         * Expiration set by a buffered access that was not replayed yet, or {@link Long#MIN_VALUE}. Concurrent maps only.
+         */
+        volatile long pendingExpiration = Long.MIN_VALUE;
+        /**
+         * Guarded by the map's write lock, concurrent maps only
+         */
+        TimerWheel.Timeout<ExpiringEntry<K, V>> timeout;
 
         /**
          * Creates a new ExpiringEntry object.
@@ -630,6 +858,10 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
             boolean result = scheduled;
             if (entryFuture != null)
                 entryFuture.cancel(false);
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
 
             entryFuture = null;
             scheduled = false;
@@ -639,15 +871,39 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         /**
          * Gets the entry value.
          */
-        synchronized V getValue() {
+        V getValue() {
             return value;
         }
 
+        /**
+         * Returns the time the entry expires at, including a buffered access that was not replayed yet.
+         */
+        long deadline() {
+            long pending = pendingExpiration;
+            long expected = expectedExpiration.get();
+            return pending == Long.MIN_VALUE ? expected : Math.max(pending, expected);
+        }
+
+        /**
+         * Makes the deadline of a buffered access the entry's expected expiration. Must not be called while the entry is
+         * in a sorted order. Concurrent maps only.
+         */
+        void applyPendingExpiration() {
+            long pending = pendingExpiration;
+            if (pending == Long.MIN_VALUE)
+                return;
+            if (pending > expectedExpiration.get())
+                expectedExpiration.set(pending);
+            // a read that raced in keeps its later deadline for the next replay
+            PENDING_EXPIRATION.compareAndSet(this, pending, Long.MIN_VALUE);
+        }
+
         /**
          * Resets the entry's expected expiration.
          */
         void resetExpiration() {
             expectedExpiration.set(expirationNanos.get() + System.nanoTime());
+            pendingExpiration = Long.MIN_VALUE;
         }
 
         /**
@@ -728,6 +984,11 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
 
     @Override
     public boolean containsKey(Object key) {
+        if (concurrent) {
+            ExpiringEntry<K, V> entry = entries.get(key);
+            return entry != null && !isExpired(entry, System.nanoTime());
+        }
+
         readLock.lock();
         try {
             return entries.containsKey(key);
@@ -764,6 +1025,8 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
 
             @Override
             public Iterator<Map.Entry<K, V>> iterator() {
+                if (entries instanceof EntryConcurrentMap)
+                    return new ConcurrentEntryIterator();
                 return (entries instanceof EntryLinkedHashMap) ? ((EntryLinkedHashMap<K, V>) entries).new EntryIterator()
                         : ((EntryTreeHashMap<K, V>) entries).new EntryIterator();
             }
@@ -799,10 +1062,14 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
     public V get(Object key) {
         ExpiringEntry<K, V> entry = getEntry(key);
 
-        if (entry == null) {
+        if (entry == null || isExpired(entry, System.nanoTime())) {
             return load((K) key);
-        } else if (ExpirationPolicy.ACCESSED.equals(entry.expirationPolicy.get()))
-            resetEntry(entry, false);
+        } else if (ExpirationPolicy.ACCESSED.equals(entry.expirationPolicy.get())) {
+            if (concurrent)
+                recordAccess(entry);
+            else
+                resetEntry(entry, false);
+        }
 
         return entry.getValue();
     }
@@ -815,7 +1082,7 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         try {
             // Double check for entry
             ExpiringEntry<K, V> entry = getEntry(key);
-            if (entry != null)
+            if (entry != null && !isExpired(entry, System.nanoTime()))
                 return entry.getValue();
 
             if (entryLoader != null) {
@@ -898,7 +1165,7 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         Assert.notNull(key, "key");
         ExpiringEntry<K, V> entry = getEntry(key);
         Assert.element(entry, key);
-        return TimeUnit.NANOSECONDS.toMillis(entry.expectedExpiration.get() - System.nanoTime());
+        return TimeUnit.NANOSECONDS.toMillis(entry.deadline() - System.nanoTime());
     }
 
     /**
@@ -921,8 +1188,15 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         }
     }
 
+    /**
+     * For {@link Builder#concurrent() concurrent} maps this may still count entries that are past their deadline until the
+     * next timer wheel tick removes them, see {@link #size()}.
+     */
     @Override
     public boolean isEmpty() {
+        if (concurrent)
+            return entries.isEmpty();
+
         readLock.lock();
         try {
             return entries.isEmpty();
@@ -946,6 +1220,8 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
 
             @Override
             public Iterator<K> iterator() {
+                if (entries instanceof EntryConcurrentMap)
+                    return new ConcurrentKeyIterator();
                 return (entries instanceof EntryLinkedHashMap) ? ((EntryLinkedHashMap<K, V>) entries).new KeyIterator()
                         : ((EntryTreeHashMap<K, V>) entries).new KeyIterator();
             }
@@ -1034,10 +1310,11 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         Assert.notNull(key, "key");
         writeLock.lock();
         try {
-            if (!entries.containsKey(key))
+            ExpiringEntry<K, V> entry = liveEntry(key);
+            if (entry == null)
                 return putInternal(key, value, expirationPolicy.get(), expirationNanos.get());
             else
-                return entries.get(key).getValue();
+                return entry.getValue();
         } finally {
             writeLock.unlock();
         }
@@ -1046,17 +1323,26 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
     @Override
     public V remove(Object key) {
         Assert.notNull(key, "key");
+        ExpiringEntry<K, V> entry;
+        boolean expired;
         writeLock.lock();
         try {
-            ExpiringEntry<K, V> entry = entries.remove(key);
+            entry = entries.remove(key);
             if (entry == null)
                 return null;
             if (entry.cancel())
                 scheduleEntry(entries.first());
-            return entry.getValue();
+            expired = isExpired(entry, System.nanoTime());
         } finally {
             writeLock.unlock();
         }
+
+        // get() already treated it as absent, so it expired rather than got removed
+        if (expired) {
+            notifyListeners(entry);
+            return null;
+        }
+        return entry.getValue();
     }
 
     @Override
@@ -1064,7 +1350,7 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         Assert.notNull(key, "key");
         writeLock.lock();
         try {
-            ExpiringEntry<K, V> entry = entries.get(key);
+            ExpiringEntry<K, V> entry = liveEntry(key);
             if (entry != null && entry.getValue().equals(value)) {
                 entries.remove(key);
                 if (entry.cancel())
@@ -1082,7 +1368,7 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         Assert.notNull(key, "key");
         writeLock.lock();
         try {
-            if (entries.containsKey(key)) {
+            if (liveEntry(key) != null) {
                 return putInternal(key, value, expirationPolicy.get(), expirationNanos.get());
             } else
                 return null;
@@ -1096,7 +1382,7 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         Assert.notNull(key, "key");
         writeLock.lock();
         try {
-            ExpiringEntry<K, V> entry = entries.get(key);
+            ExpiringEntry<K, V> entry = liveEntry(key);
             if (entry != null && entry.getValue().equals(oldValue)) {
                 putInternal(key, newValue, expirationPolicy.get(), expirationNanos.get());
                 return true;
@@ -1238,8 +1524,16 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         this.maxSize = maxSize;
     }
 
+    /**
+     * For {@link Builder#concurrent() concurrent} maps the size is approximate: entries that are past their deadline keep
+     * being counted until the next timer wheel tick removes them, even though {@link #get(Object)}, {@link #containsKey(Object)},
+     * {@link #remove(Object)} and iteration already treat them as absent.
+     */
     @Override
     public int size() {
+        if (concurrent)
+            return entries.size();
+
         readLock.lock();
         try {
             return entries.size();
@@ -1273,6 +1567,8 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
 
             @Override
             public Iterator<V> iterator() {
+                if (entries instanceof EntryConcurrentMap)
+                    return new ConcurrentValueIterator();
                 return (entries instanceof EntryLinkedHashMap) ? ((EntryLinkedHashMap<K, V>) entries).new ValueIterator()
                         : ((EntryTreeHashMap<K, V>) entries).new ValueIterator();
             }
@@ -1312,9 +1608,12 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
     }
 
     /**
-     * Returns the internal ExpiringEntry for the {@code key}, obtaining a read lock.
+     * Returns the internal ExpiringEntry for the {@code key}, obtaining a read lock unless the map is concurrent.
      */
     ExpiringEntry<K, V> getEntry(Object key) {
+        if (concurrent)
+            return entries.get(key);
+
         readLock.lock();
         try {
             return entries.get(key);
@@ -1333,17 +1632,31 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
             ExpiringEntry<K, V> entry = entries.get(key);
             V oldValue = null;
 
+            if (entry != null && isExpired(entry, System.nanoTime())) {
+                // the timer wheel has not reached it yet, expire it now so the put starts a fresh entry
+                entries.remove(key);
+                entry.cancel();
+                notifyListeners(entry);
+                entry = null;
+            }
+
             if (entry == null) {
                 entry = new ExpiringEntry<K, V>(key, value,
                         variableExpiration ? new AtomicReference<ExpirationPolicy>(expirationPolicy) : this.expirationPolicy,
                         variableExpiration ? new AtomicLong(expirationNanos) : this.expirationNanos);
                 if (entries.size() >= maxSize) {
+                    if (concurrent)
+                        drainAccessBuffer();
                     ExpiringEntry<K, V> expiredEntry = entries.first();
                     entries.remove(expiredEntry.key);
+                    if (concurrent)
+                        expiredEntry.cancel();
                     notifyListeners(expiredEntry);
                 }
                 entries.put(key, entry);
-                if (entries.size() == 1 || entries.first().equals(entry))
+                if (concurrent)
+                    scheduleTimeout(entry);
+                else if (entries.size() == 1 || entries.first().equals(entry))
                     scheduleEntry(entry);
             } else {
                 oldValue = entry.getValue();
@@ -1372,6 +1685,15 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
     void resetEntry(ExpiringEntry<K, V> entry, boolean scheduleFirstEntry) {
         writeLock.lock();
         try {
+            if (concurrent) {
+                // the entry may have been removed since it was looked up without a lock
+                if (entries.get(entry.key) == entry) {
+                    entries.reorder(entry);
+                    scheduleTimeout(entry);
+                }
+                return;
+            }
+
             boolean scheduled = entry.cancel();
             entries.reorder(entry);
 
@@ -1439,6 +1761,122 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         }
     }
 
+    /**
+     * Returns whether a concurrent map's entry is past its deadline. Entries of a non-concurrent map are removed by the
+     * expirer before they expire, so this is always false for them.
+     */
+    boolean isExpired(ExpiringEntry<K, V> entry, long now) {
+        return concurrent && entry.deadline() <= now;
+    }
+
+    /**
+     * Returns the entry for {@code key} unless it is missing or expired. Must be called with the write lock held.
+     */
+    private ExpiringEntry<K, V> liveEntry(Object key) {
+        ExpiringEntry<K, V> entry = entries.get(key);
+        return entry == null || isExpired(entry, System.nanoTime()) ? null : entry;
+    }
+
+    /**
+     * Extends the entry's deadline right away and buffers the access so the expiration order is updated later, off the
+     * reading thread. Concurrent maps only.
+     */
+    private void recordAccess(ExpiringEntry<K, V> entry) {
+        entry.pendingExpiration = System.nanoTime() + entry.expirationNanos.get();
+
+        // a full buffer only costs eviction order, reads and the timer wheel go by the deadline set above
+        if (bufferedAccesses.get() >= ACCESS_BUFFER_LIMIT)
+            return;
+
+        accessBuffer.offer(entry);
+        if (bufferedAccesses.incrementAndGet() >= ACCESS_DRAIN_THRESHOLD && drainScheduled.compareAndSet(false, true)) {
+            EXPIRER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writeLock.lock();
+                    try {
+                        drainScheduled.set(false);
+                        drainAccessBuffer();
+                    } finally {
+                        writeLock.unlock();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Replays buffered accesses against the expiration order. Must be called with the write lock held.
+     */
+    private void drainAccessBuffer() {
+        ExpiringEntry<K, V> entry;
+        while ((entry = accessBuffer.poll()) != null) {
+            bufferedAccesses.decrementAndGet();
+            if (entry.pendingExpiration != Long.MIN_VALUE && entries.get(entry.key) == entry) {
+                ((EntryConcurrentMap<K, V>) entries).replayAccess(entry);
+                scheduleTimeout(entry);
+            }
+        }
+    }
+
+    /**
+     * (Re)schedules the entry on the timer wheel, starting the ticker if it is not running. Must be called with the
+     * write lock held.
+     */
+    private void scheduleTimeout(ExpiringEntry<K, V> entry) {
+        if (entry.timeout != null)
+            entry.timeout.cancel();
+        entry.timeout = timerWheel.schedule(entry, entry.deadline());
+
+        if (ticker == null) {
+            long tickNanos = timerWheel.getTickNanos();
+            ticker = new Ticker(this);
+            ticker.future = EXPIRER.scheduleWithFixedDelay(ticker, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Replays buffered accesses and expires every entry whose timeout fired. Listeners are notified after the write
+     * lock is released.
+     */
+    void tick() {
+        final List<ExpiringEntry<K, V>> expired = new ArrayList<ExpiringEntry<K, V>>();
+
+        writeLock.lock();
+        try {
+            drainAccessBuffer();
+
+            final long now = System.nanoTime();
+            timerWheel.advance(now, new Consumer<ExpiringEntry<K, V>>() {
+                @Override
+                public void accept(ExpiringEntry<K, V> entry) {
+                    entry.timeout = null;
+                    if (entries.get(entry.key) != entry)
+                        return;
+
+                    // accessed since it was scheduled
+                    if (entry.deadline() > now)
+                        scheduleTimeout(entry);
+                    else {
+                        entries.remove(entry.key);
+                        expired.add(entry);
+                    }
+                }
+            });
+
+            if (entries.isEmpty() && ticker != null) {
+                ticker.future.cancel(false);
+                ticker = null;
+                timerWheel.clear();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        for (ExpiringEntry<K, V> entry : expired)
+            notifyListeners(entry);
+    }
+
     private static <K, V> Map.Entry<K, V> mapEntryFor(final ExpiringEntry<K, V> entry) {
         return new Map.Entry<K, V>() {
             @Override
@@ -1458,6 +1896,28 @@ public class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
         };
     }
 
+    /**
+     * Advances a concurrent map's timer wheel. Only holds the map weakly, so a map that is no longer used stops its own
+     * ticker.
+     */
+    private static final class Ticker implements Runnable {
+        private final WeakReference<ExpiringMap<?, ?>> map;
+        volatile Future<?> future;
+
+        Ticker(ExpiringMap<?, ?> map) {
+            this.map = new WeakReference<ExpiringMap<?, ?>>(map);
+        }
+
+        @Override
+        public void run() {
+            ExpiringMap<?, ?> map = this.map.get();
+            if (map != null)
+                map.tick();
+            else if (future != null)
+                future.cancel(false);
+        }
+    }
+
     private void initListenerService() {
         synchronized (ExpiringMap.class) {
             if (LISTENER_SERVICE == null) {
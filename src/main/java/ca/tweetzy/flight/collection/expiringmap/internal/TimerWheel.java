@@ -0,0 +1,133 @@
+package ca.tweetzy.flight.collection.expiringmap.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel. Deadlines are rounded up to a tick and hashed into a fixed number of buckets, so scheduling and
+ * cancelling are <i>O(1)</i> and advancing only visits the buckets for the ticks that elapsed.
+ *
+ * <p>
+ * Not thread-safe, callers are expected to guard it with their own lock.
+ *
+ * @param <E> Element type
+ */
+public final class TimerWheel<E> {
+    private final long tickNanos;
+    private final long originNanos;
+    private final ArrayDeque<Timeout<E>>[] buckets;
+    private final int mask;
+    /**
+     * The next tick that has not been processed yet
+     */
+    private long currentTick;
+
+    /**
+     * Creates a new TimerWheel.
+     *
+     * @param tickNanos   the resolution of the wheel
+     * @param bucketCount the number of buckets, rounded up to a power of two
+     * @param originNanos the {@link System#nanoTime()} that tick zero starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickNanos, int bucketCount, long originNanos) {
+        Assert.operation(tickNanos > 0, "tickNanos");
+        Assert.operation(bucketCount > 0, "bucketCount");
+
+        int size = Integer.highestOneBit(bucketCount);
+        if (size < bucketCount)
+            size <<= 1;
+
+        this.tickNanos = tickNanos;
+        this.originNanos = originNanos;
+        this.buckets = new ArrayDeque[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++)
+            buckets[i] = new ArrayDeque<Timeout<E>>();
+    }
+
+    /**
+     * Returns the resolution of the wheel in nanoseconds.
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Schedules {@code element} to fire once {@code deadlineNanos} has passed. Deadlines in the past fire on the next
+     * advance.
+     *
+     * @return the timeout, which can be cancelled
+     */
+    public Timeout<E> schedule(E element, long deadlineNanos) {
+        long tick = Math.max((deadlineNanos - originNanos + tickNanos - 1) / tickNanos, currentTick);
+        Timeout<E> timeout = new Timeout<E>(element, tick);
+        buckets[(int) (tick & mask)].add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel to {@code nowNanos}, passing every element whose deadline has passed to {@code expired}. The
+     * consumer is called after the buckets were walked, so it may schedule elements again.
+     */
+    public void advance(long nowNanos, Consumer<E> expired) {
+        long targetTick = (nowNanos - originNanos) / tickNanos;
+        if (targetTick < currentTick)
+            return;
+
+        // once a full rotation elapsed every bucket has to be visited exactly once
+        long ticks = Math.min(targetTick - currentTick + 1, buckets.length);
+        List<E> fired = null;
+
+        for (long i = 0; i < ticks; i++) {
+            Iterator<Timeout<E>> iterator = buckets[(int) ((currentTick + i) & mask)].iterator();
+            while (iterator.hasNext()) {
+                Timeout<E> timeout = iterator.next();
+                if (timeout.cancelled) {
+                    iterator.remove();
+                } else if (timeout.tick <= targetTick) {
+                    iterator.remove();
+                    if (fired == null)
+                        fired = new ArrayList<E>();
+                    fired.add(timeout.element);
+                }
+            }
+        }
+
+        currentTick = targetTick + 1;
+
+        if (fired != null)
+            for (E element : fired)
+                expired.accept(element);
+    }
+
+    /**
+     * Drops every scheduled timeout.
+     */
+    public void clear() {
+        for (ArrayDeque<Timeout<E>> bucket : buckets)
+            bucket.clear();
+    }
+
+    /**
+     * A scheduled element. Cancelled timeouts are dropped lazily when their bucket is visited.
+     */
+    public static final class Timeout<E> {
+        final E element;
+        final long tick;
+        boolean cancelled;
+
+        Timeout(E element, long tick) {
+            this.element = element;
+            this.tick = tick;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
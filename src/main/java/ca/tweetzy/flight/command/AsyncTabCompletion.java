@@ -0,0 +1,100 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.command;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Hooks into Paper's AsyncTabCompleteEvent (when it exists) so commands that complete
+ * asynchronously are answered off the main thread. Paper isn't on the classpath, so the
+ * event is accessed reflectively.
+ */
+final class AsyncTabCompletion implements Listener {
+
+    private static final String EVENT_CLASS = "com.destroystokyo.paper.event.server.AsyncTabCompleteEvent";
+
+    private final CommandManager manager;
+    private final Method getSender, getBuffer, isCommand, isHandled, setHandled, setCompletions;
+
+    private AsyncTabCompletion(CommandManager manager, Class<?> eventClass) throws ReflectiveOperationException {
+        this.manager = manager;
+        this.getSender = eventClass.getMethod("getSender");
+        this.getBuffer = eventClass.getMethod("getBuffer");
+        this.isCommand = eventClass.getMethod("isCommand");
+        this.isHandled = eventClass.getMethod("isHandled");
+        this.setHandled = eventClass.getMethod("setHandled", boolean.class);
+        this.setCompletions = eventClass.getMethod("setCompletions", List.class);
+    }
+
+    /**
+     * Registers the listener if the server fires AsyncTabCompleteEvent
+     *
+     * @return true if the async path is active
+     */
+    @SuppressWarnings("unchecked")
+    static boolean register(Plugin plugin, CommandManager manager) {
+        try {
+            final Class<? extends Event> eventClass = (Class<? extends Event>) Class.forName(EVENT_CLASS);
+            final AsyncTabCompletion listener = new AsyncTabCompletion(manager, eventClass);
+
+            Bukkit.getPluginManager().registerEvent(eventClass, listener, EventPriority.NORMAL, (l, event) -> {
+                if (eventClass.isInstance(event))
+                    listener.handle(event);
+            }, plugin, true);
+
+            return true;
+        } catch (ClassNotFoundException ignored) {
+            // not paper, the sync path falls back to cached suggestions
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            plugin.getLogger().warning("Could not hook into async tab completion: " + ex.getMessage());
+        }
+
+        return false;
+    }
+
+    private void handle(Event event) {
+        try {
+            if ((boolean) this.isHandled.invoke(event) || !(boolean) this.isCommand.invoke(event)) return;
+
+            String buffer = (String) this.getBuffer.invoke(event);
+            if (buffer.startsWith("/")) buffer = buffer.substring(1);
+
+            final int space = buffer.indexOf(' ');
+            // still typing the label itself, leave that to the server
+            if (space == -1) return;
+
+            final String[] args = buffer.substring(space + 1).split(" ", -1);
+            final List<String> completions = this.manager.completeAsync((CommandSender) this.getSender.invoke(event), buffer.substring(0, space), args);
+
+            if (completions != null) {
+                this.setCompletions.invoke(event, completions);
+                this.setHandled.invoke(event, true);
+            }
+        } catch (ReflectiveOperationException ignored) {
+        }
+    }
+}
@@ -18,6 +18,11 @@
 
 package ca.tweetzy.flight.command;
 
+import ca.tweetzy.flight.command.argument.ArgumentParseException;
+import ca.tweetzy.flight.command.argument.ArgumentParser;
+import ca.tweetzy.flight.command.argument.ArgumentSchema;
+import ca.tweetzy.flight.command.argument.CommandArgument;
+import ca.tweetzy.flight.command.argument.ParsedArguments;
 import ca.tweetzy.flight.utils.Common;
 import lombok.NonNull;
 import org.bukkit.command.CommandSender;
@@ -26,6 +31,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Date Created: April 09 2022
@@ -37,6 +44,10 @@ public abstract class Command {
 
     private final AllowedExecutor allowedExecutor;
     private final List<String> subCommands = new ArrayList<>();
+    private final List<CommandArgument<?>> arguments = new ArrayList<>();
+    private ArgumentSchema argumentSchema;
+    private long cooldown = 0;
+    private String cooldownBypassPermission = null;
 
     protected Command(AllowedExecutor allowedExecutor, String... subCommands) {
         this.allowedExecutor = allowedExecutor;
@@ -59,10 +70,126 @@ public abstract class Command {
         return allowedExecutor;
     }
 
+    /**
+     * Players have to wait this long between successful uses of the command, 0 disables the cooldown.
+     * Should be called from the constructor.
+     */
+    protected final void setCooldown(final long duration, @NonNull final TimeUnit unit) {
+        this.cooldown = Math.max(0, unit.toMillis(duration));
+    }
+
+    /**
+     * Players with this permission skip the cooldown
+     */
+    protected final void setCooldownBypassPermission(final String permission) {
+        this.cooldownBypassPermission = permission;
+    }
+
+    /**
+     * @return the cooldown in milliseconds, 0 if there is none
+     */
+    public final long getCooldown() {
+        return this.cooldown;
+    }
+
+    public final String getCooldownBypassPermission() {
+        return this.cooldownBypassPermission;
+    }
+
+    /**
+     * Declares a required argument, arguments are parsed in the order they are declared.
+     * Should be called from the constructor, the schema is compiled when the command is registered.
+     */
+    protected final <T> void argument(@NonNull final String name, @NonNull final ArgumentParser<T> parser) {
+        addArgument(CommandArgument.required(name, parser));
+    }
+
+    /**
+     * Declares an optional argument, it must come after every required argument
+     */
+    protected final <T> void optionalArgument(@NonNull final String name, @NonNull final ArgumentParser<T> parser) {
+        addArgument(CommandArgument.optional(name, parser));
+    }
+
+    private void addArgument(CommandArgument<?> argument) {
+        this.arguments.add(argument);
+        this.argumentSchema = null;
+    }
+
+    /**
+     * @return the compiled argument schema, empty if no arguments were declared
+     */
+    public final ArgumentSchema getArgumentSchema() {
+        ArgumentSchema schema = this.argumentSchema;
+        if (schema == null)
+            this.argumentSchema = schema = ArgumentSchema.compile(this.arguments);
+
+        return schema;
+    }
+
+    /**
+     * Compiles the argument schema up front so invalid declarations fail on registration instead of first use
+     */
+    final void compileArguments() {
+        getArgumentSchema();
+    }
+
+    /**
+     * @return the command's syntax, or its label followed by the declared arguments if it doesn't provide one
+     */
+    final String resolveSyntax() {
+        final String syntax = getSyntax();
+        if (syntax != null) return syntax;
+
+        final String label = this.subCommands.isEmpty() ? "" : this.subCommands.get(0);
+        final ArgumentSchema schema = getArgumentSchema();
+
+        return schema.isEmpty() ? label : (label + " " + schema.getUsage()).trim();
+    }
+
     protected abstract ReturnType execute(CommandSender sender, String... args);
 
+    /**
+     * Called instead of {@link #execute(CommandSender, String...)} once the declared arguments were parsed.
+     * If parsing fails the sender is told why and this is never called.
+     *
+     * @see #argument(String, ArgumentParser)
+     */
+    protected ReturnType execute(CommandSender sender, ParsedArguments args) {
+        return execute(sender, args.raw());
+    }
+
+    /**
+     * Parses the arguments against the schema and runs the command
+     *
+     * @throws ArgumentParseException if the arguments don't match the schema
+     */
+    final ReturnType dispatch(CommandSender sender, String[] args) throws ArgumentParseException {
+        final ArgumentSchema schema = getArgumentSchema();
+        if (schema.isEmpty()) return execute(sender, args);
+
+        return execute(sender, schema.parse(sender, args));
+    }
+
     protected abstract List<String> tab(CommandSender sender, String... args);
 
+    /**
+     * If true, tab completion goes through {@link #tabAsync(CommandSender, String...)} instead of {@link #tab(CommandSender, String...)}
+     */
+    protected boolean isAsyncTab() {
+        return false;
+    }
+
+    /**
+     * Completes the arguments without blocking the main thread, e.g. when suggestions come from a database.
+     * The returned future should do its work elsewhere, results are cached per sender and input for a few seconds.
+     *
+     * @see #isAsyncTab()
+     */
+    protected CompletableFuture<List<String>> tabAsync(CommandSender sender, String... args) {
+        return CompletableFuture.completedFuture(tab(sender, args));
+    }
+
     public abstract String getPermissionNode();
 
     public abstract String getSyntax();
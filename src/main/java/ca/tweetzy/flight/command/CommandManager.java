@@ -18,6 +18,8 @@
 
 package ca.tweetzy.flight.command;
 
+import ca.tweetzy.flight.collection.expiringmap.ExpiringMap;
+import ca.tweetzy.flight.command.argument.ArgumentParseException;
 import ca.tweetzy.flight.comp.enums.ServerProject;
 import ca.tweetzy.flight.comp.enums.ServerVersion;
 import ca.tweetzy.flight.utils.Common;
@@ -35,7 +37,12 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 /**
  * Date Created: April 09 2022
@@ -59,6 +66,9 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
     @Setter
     private String unknownCommandMessage = "&cThat command does not exist!";
 
+    @Setter
+    private String cooldownMessage = "&cPlease wait &4%remaining%s &cbefore using that command again!";
+
     @Setter
     private List<String> syntaxErrorMessages = Arrays.asList(
             "&8&m-----------------------------------------------------",
@@ -75,13 +85,50 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
     );
 
 
+    /**
+     * How long (in milliseconds) the async tab completion path waits on a command's suggestions
+     */
+    @Setter
+    private long asyncTabTimeout = 500;
+
     private final JavaPlugin plugin;
     private boolean allowLooseCommands = false;
+    private boolean asyncTabHooked = false;
+
+    // async suggestions keyed by (sender, command, input), and the last suggestions each sender received
+    private final ExpiringMap<String, List<String>> tabCache = ExpiringMap.builder().expiration(3, TimeUnit.SECONDS).maxSize(2048).build();
+    private final ExpiringMap<String, List<String>> lastTabSuggestions = ExpiringMap.builder().expiration(30, TimeUnit.SECONDS).maxSize(512).build();
+
+    // when each player last used a command with a cooldown, entries expire together with the cooldown
+    private final Map<Command, ExpiringMap<UUID, Long>> cooldowns = new ConcurrentHashMap<>();
+    private final CommandMetrics metrics = new CommandMetrics();
 
     public CommandManager(JavaPlugin plugin) {
         this.plugin = plugin;
     }
 
+    /**
+     * @return the invocation counts and execution times of every command handled by this manager
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the milliseconds left on the player's cooldown for the command, 0 if there is none
+     */
+    public long getRemainingCooldown(Command command, UUID player) {
+        final ExpiringMap<UUID, Long> used = cooldowns.get(command);
+        final Long lastUse = used == null ? null : used.get(player);
+
+        return lastUse == null ? 0 : Math.max(0, lastUse + command.getCooldown() - System.currentTimeMillis());
+    }
+
+    public void resetCooldown(Command command, UUID player) {
+        final ExpiringMap<UUID, Long> used = cooldowns.get(command);
+        if (used != null) used.remove(player);
+    }
+
     public Set<String> getCommands() {
         return Collections.unmodifiableSet(commands.keySet());
     }
@@ -116,6 +163,7 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
 
     public NestedCommand registerCommandDynamically(Command command) {
         final NestedCommand nested = new NestedCommand(command);
+        hookAsyncTab();
 
         command.getSubCommands().forEach(cmd -> {
             CommandManager.registerCommandDynamically(plugin, cmd, this, this);
@@ -135,6 +183,7 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
 
     public NestedCommand addCommand(Command command) {
         final NestedCommand nested = new NestedCommand(command);
+        hookAsyncTab();
 
         command.getSubCommands().forEach(cmd -> {
             commands.put(cmd.toLowerCase(), nested);
@@ -155,6 +204,7 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
     public MainCommand addMainCommand(String command) {
         final MainCommand nested = new MainCommand(plugin, command);
         commands.put(command.toLowerCase(), nested.nestedCommands);
+        hookAsyncTab();
 
         final PluginCommand pluginCommand = plugin.getCommand(command);
         if (pluginCommand != null) {
@@ -209,19 +259,12 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
 
         if (nested != null) {
             // check to see if we're trying to call a sub-command
-            if (args.length != 0 && !nested.children.isEmpty()) {
-                final String subCommand = getSubCommand(nested, args);
-
-                if (subCommand != null) {
-                    // we have a subcommand to use!
-                    final Command sub = nested.children.get(subCommand);
-                    // adjust the arguments to match - BREAKING!!
-                    int i = subCommand.indexOf(' ') == -1 ? 1 : 2;
-                    String[] newArgs = new String[args.length - i];
-                    System.arraycopy(args, i, newArgs, 0, newArgs.length);
-
-                    // now process the command
-                    processRequirements(sub, commandSender, newArgs);
+            if (args.length != 0 && !nested.tree.isEmpty()) {
+                final CommandTree.Node match = nested.tree.resolve(args, allowLooseCommands);
+
+                if (match != null) {
+                    // we have a subcommand to use! its label used up the first (depth) arguments
+                    processRequirements(match.command, commandSender, Arrays.copyOfRange(args, match.depth, args.length));
                     return true;
                 }
             }
@@ -244,76 +287,90 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
         final NestedCommand nested = commands.get(command.getName().toLowerCase());
 
         if (nested != null) {
-            if (args.length == 0 || nested.children.isEmpty()) {
-                return nested.parent != null ? nested.parent.tab(sender, args) : null;
-            }
+            return complete(nested, sender, args, false);
+        }
 
-            // check for each sub-command that they have access to
-            final boolean op = sender.isOp();
-            final boolean console = !(sender instanceof Player);
-
-            if (args.length == 1) {
-                // suggest sub-commands that this user has access to
-                final String arg = args[0].toLowerCase();
-                return nested.children.entrySet().stream()
-                        .filter(e -> !console || !e.getValue().isNoConsole())
-                        .filter(e -> e.getKey().startsWith(arg))
-                        .filter(e -> op || e.getValue().getPermissionNode() == null || sender.hasPermission(e.getValue().getPermissionNode()))
-                        .map(Map.Entry::getKey)
-                        .collect(Collectors.toList());
-            }
+        return Collections.emptyList();
+    }
 
-            // more than one arg, let's check to see if we have a command here
-            final String subCmd = getSubCommand(nested, args);
-            Command sub;
-            if (subCmd != null && (sub = nested.children.get(subCmd)) != null && (!console || !sub.isNoConsole()) && (op || sub.getPermissionNode() == null || sender.hasPermission(sub.getPermissionNode()))) {
-                // adjust the arguments to match - BREAKING!!
-                int i = subCmd.indexOf(' ') == -1 ? 1 : 2;
-                final String[] newArgs = new String[args.length - i];
-                System.arraycopy(args, i, newArgs, 0, newArgs.length);
-
-                // we're good to go!
-                return fetchList(sub, newArgs, sender);
-            }
+    /**
+     * Called from Paper's async tab complete event, only answers if the targeted command completes asynchronously
+     *
+     * @return the suggestions, or null to let the server handle it normally
+     */
+    @Nullable
+    List<String> completeAsync(CommandSender sender, String label, String[] args) {
+        final NestedCommand nested = findCommand(label);
+        if (nested == null) return null;
+
+        final Command target;
+        if (args.length == 0 || nested.tree.isEmpty()) {
+            target = nested.parent;
+        } else {
+            final CommandTree.Node match = nested.tree.resolve(args, args.length - 1, allowLooseCommands);
+            target = match == null ? null : match.command;
         }
 
-        return Collections.emptyList();
+        if (target == null || !target.isAsyncTab()) return null;
+        return complete(nested, sender, args, true);
     }
 
-    private String getSubCommand(NestedCommand nested, String[] args) {
-        final String cmd = args[0].toLowerCase();
-        if (nested.children.containsKey(cmd)) {
-            return cmd;
+    private List<String> complete(NestedCommand nested, CommandSender sender, String[] args, boolean blocking) {
+        if (args.length == 0 || nested.tree.isEmpty()) {
+            if (nested.parent == null) return null;
+            return nested.parent.isAsyncTab() ? fetchAsyncList(nested.parent, args, sender, blocking) : nested.parent.tab(sender, args);
         }
 
-        String match = null;
-        // support for mulit-argument subcommands
-        if (args.length >= 2 && nested.children.keySet().stream().anyMatch(k -> k.indexOf(' ') != -1)) {
-            for (int len = args.length; len > 1; --len) {
-                final String cmd2 = String.join(" ", Arrays.copyOf(args, len)).toLowerCase();
-                if (nested.children.containsKey(cmd2)) {
-                    return cmd2;
-                }
+        // check for each sub-command that they have access to
+        final boolean op = sender.isOp();
+        final boolean console = !(sender instanceof Player);
+        final Predicate<Command> canUse = cmd -> (!console || !cmd.isNoConsole()) && (op || cmd.getPermissionNode() == null || sender.hasPermission(cmd.getPermissionNode()));
+
+        // the last argument is the one being typed, everything before it is complete
+        final String typing = args[args.length - 1];
+        final CommandTree.Node node = nested.tree.walk(args, args.length - 1);
+        final List<String> suggestions = new ArrayList<>();
+
+        if (node.depth == args.length - 1) {
+            // suggest the next word of the sub-commands this user has access to
+            for (CommandTree.Node child : node.children.tailMap(typing, true).values()) {
+                if (!CommandTree.Node.startsWith(child.token, typing)) break;
+                if (child.anyCommand(canUse)) suggestions.add(child.token);
             }
         }
 
-        // if we don't have a subcommand, should we search for one?
-        if (allowLooseCommands) {
-            // do a "closest match"
-            int count = 0;
-            for (String c : nested.children.keySet()) {
-                if (c.startsWith(cmd)) {
-                    match = c;
-                    if (++count > 1) {
-                        // there can only be one!
-                        match = null;
-                        break;
-                    }
-                }
-            }
+        // the completed words form a sub-command, let it complete its own arguments
+        final CommandTree.Node match = nested.tree.resolve(args, args.length - 1, allowLooseCommands);
+        if (match != null && canUse.test(match.command)) {
+            final List<String> list = fetchList(match.command, Arrays.copyOfRange(args, match.depth, args.length), sender, blocking);
+
+            if (suggestions.isEmpty()) return list;
+            if (list != null) suggestions.addAll(list);
         }
 
-        return match;
+        return suggestions;
+    }
+
+    @Nullable
+    private NestedCommand findCommand(String label) {
+        label = label.toLowerCase();
+
+        // namespaced, e.g. /plugin:command
+        final int colon = label.indexOf(':');
+        if (colon != -1) label = label.substring(colon + 1);
+
+        final NestedCommand nested = commands.get(label);
+        if (nested != null) return nested;
+
+        // could be an alias
+        final PluginCommand pluginCommand = plugin.getCommand(label);
+        return pluginCommand == null ? null : commands.get(pluginCommand.getName().toLowerCase());
+    }
+
+    private void hookAsyncTab() {
+        if (asyncTabHooked) return;
+        asyncTabHooked = true;
+        AsyncTabCompletion.register(plugin, this);
     }
 
     private void processRequirements(Command command, CommandSender sender, String[] args) {
@@ -328,7 +385,37 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
         }
 
         if (command.getPermissionNode() == null || sender.hasPermission(command.getPermissionNode())) {
-            final ReturnType returnType = command.execute(sender, args);
+            final UUID cooldownHolder = getCooldownHolder(command, sender);
+
+            if (cooldownHolder != null) {
+                final long remaining = getRemainingCooldown(command, cooldownHolder);
+
+                if (remaining > 0) {
+                    metrics.recordDenied(command);
+                    Common.tell(sender, cooldownMessage.replace("%remaining%", String.valueOf((remaining + 999) / 1000)));
+                    return;
+                }
+            }
+
+            final long start = System.nanoTime();
+            ReturnType returnType;
+
+            try {
+                returnType = command.dispatch(sender, args);
+            } catch (ArgumentParseException ex) {
+                // a specific argument was wrong, say which one; a missing/extra argument just shows the syntax
+                if (ex.getMessage() != null) Common.tell(sender, ex.getMessage());
+                returnType = ReturnType.INVALID_SYNTAX;
+            }
+
+            metrics.record(command, returnType == null ? ReturnType.FAIL : returnType, System.nanoTime() - start);
+
+            // only a successful use starts the cooldown, typos shouldn't lock players out
+            if (cooldownHolder != null && returnType == ReturnType.SUCCESS) {
+                // the cooldown can change at runtime, so every use expires after the cooldown it was made under
+                cooldowns.computeIfAbsent(command, cmd -> ExpiringMap.builder().variableExpiration().build())
+                        .put(cooldownHolder, System.currentTimeMillis(), command.getCooldown(), TimeUnit.MILLISECONDS);
+            }
 
             if (returnType == ReturnType.REQUIRES_PLAYER) {
                 Common.tell(sender, playerOnlyMessage);
@@ -344,7 +431,7 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
                 for (String s : syntaxErrorMessages) {
                     Common.tellNoPrefix(sender, s
                             .replace("%pl_name%", Common.PLUGIN_NAME)
-                            .replace("%syntax%", command.getSyntax()));
+                            .replace("%syntax%", command.resolveSyntax()));
                 }
             }
 
@@ -354,8 +441,23 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
         Common.tell(sender, noPermissionMessage);
     }
 
-    private List<String> fetchList(Command Command, String[] args, CommandSender sender) {
-        final List<String> list = Command.tab(sender, args);
+    /**
+     * @return the player that the command's cooldown applies to, or null if it doesn't apply
+     */
+    @Nullable
+    private UUID getCooldownHolder(Command command, CommandSender sender) {
+        if (command.getCooldown() <= 0 || !(sender instanceof Player)) return null;
+        if (command.getCooldownBypassPermission() != null && sender.hasPermission(command.getCooldownBypassPermission())) return null;
+
+        return ((Player) sender).getUniqueId();
+    }
+
+    private List<String> fetchList(Command Command, String[] args, CommandSender sender, boolean blocking) {
+        List<String> list = Command.isAsyncTab() ? fetchAsyncList(Command, args, sender, blocking) : Command.tab(sender, args);
+
+        // commands that declare arguments get completions from their parsers for free
+        if (list == null && !Command.getArgumentSchema().isEmpty())
+            list = Command.getArgumentSchema().suggest(sender, args);
 
         if (args.length != 0) {
             final String str = args[args.length - 1];
@@ -371,6 +473,49 @@ public final class CommandManager implements CommandExecutor, TabCompleter {
         return list;
     }
 
+    /**
+     * Grabs the suggestions of an async command. Results are cached per sender and input, when not allowed to block
+     * (spigot, main thread) and nothing is cached yet, the sender's last suggestions for the same command and argument
+     * position are used until the future finishes.
+     */
+    private List<String> fetchAsyncList(Command command, String[] args, CommandSender sender, boolean blocking) {
+        final String senderKey = sender instanceof Player ? ((Player) sender).getUniqueId().toString() : sender.getName();
+        final String fallbackKey = senderKey + '\0' + System.identityHashCode(command) + '\0' + args.length;
+        final String cacheKey = fallbackKey + '\0' + String.join(" ", args);
+
+        final List<String> cached = tabCache.get(cacheKey);
+        if (cached != null) return new ArrayList<>(cached);
+
+        final CompletableFuture<List<String>> future;
+        try {
+            future = command.tabAsync(sender, args).thenApply(result -> {
+                final List<String> suggestions = result == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(result));
+                tabCache.put(cacheKey, suggestions);
+                lastTabSuggestions.put(fallbackKey, suggestions);
+                return suggestions;
+            });
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+            return new ArrayList<>();
+        }
+
+        List<String> result = future.getNow(null);
+
+        if (result == null && blocking) {
+            try {
+                result = future.get(asyncTabTimeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException ignored) {
+            }
+        }
+
+        if (result == null)
+            result = lastTabSuggestions.get(fallbackKey);
+
+        return result == null ? new ArrayList<>() : new ArrayList<>(result);
+    }
+
     public static void registerCommandDynamically(Plugin plugin, String command, CommandExecutor executor, TabCompleter tabManager) {
         try {
             // Retrieve the SimpleCommandMap from the server
@@ -0,0 +1,142 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.command;
+
+import ca.tweetzy.flight.utils.TimingHistogram;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation counts and execution times of the commands handled by a {@link CommandManager}.
+ * <p>
+ * Recording is a handful of adder increments, so it is always on.
+ */
+public final class CommandMetrics {
+
+    private final Map<Command, Entry> metrics = new ConcurrentHashMap<>();
+
+    CommandMetrics() {
+    }
+
+    void record(@NotNull final Command command, @NotNull final ReturnType result, final long nanos) {
+        final Entry entry = entry(command);
+
+        entry.timings.record(nanos);
+        if (result != ReturnType.SUCCESS)
+            entry.failures.increment();
+    }
+
+    void recordDenied(@NotNull final Command command) {
+        entry(command).cooldownDenials.increment();
+    }
+
+    /**
+     * @return the metrics of a single command, or null if it was never run
+     */
+    @Nullable
+    public Snapshot get(@NotNull final Command command) {
+        final Entry entry = this.metrics.get(command);
+        return entry == null ? null : entry.snapshot();
+    }
+
+    /**
+     * @return an immutable view of every command that was run, keyed by its first label
+     */
+    public Map<String, Snapshot> snapshot() {
+        final Map<String, Snapshot> snapshot = new LinkedHashMap<>();
+        this.metrics.forEach((command, entry) -> snapshot.put(labelOf(command), entry.snapshot()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Formats the current metrics into chat friendly lines, slowest command first
+     *
+     * @return The formatted lines
+     */
+    public List<String> describe() {
+        final List<String> lines = new ArrayList<>();
+        final List<Map.Entry<String, Snapshot>> entries = new ArrayList<>(snapshot().entrySet());
+
+        entries.sort((a, b) -> Double.compare(b.getValue().getMeanMillis(), a.getValue().getMeanMillis()));
+
+        for (Map.Entry<String, Snapshot> entry : entries) {
+            final Snapshot snap = entry.getValue();
+            lines.add(String.format(
+                    "&e%s&8: &f%d &7calls, &f%d &7failed, &f%d &7on cooldown, &f%.2fms &7avg, &f%.2fms &7p95, &f%.2fms &7max",
+                    entry.getKey(), snap.getInvocations(), snap.getFailures(), snap.getCooldownDenials(), snap.getMeanMillis(), snap.getP95Millis(), snap.getMaxMillis()
+            ));
+        }
+
+        return lines;
+    }
+
+    public void reset() {
+        this.metrics.clear();
+    }
+
+    private Entry entry(final Command command) {
+        return this.metrics.computeIfAbsent(command, c -> new Entry());
+    }
+
+    private static String labelOf(final Command command) {
+        return command.getSubCommands().isEmpty() ? command.getClass().getSimpleName() : command.getSubCommands().get(0);
+    }
+
+    private static final class Entry {
+
+        final TimingHistogram timings = new TimingHistogram();
+        final LongAdder failures = new LongAdder();
+        final LongAdder cooldownDenials = new LongAdder();
+
+        Snapshot snapshot() {
+            return new Snapshot(
+                    this.timings.getCount(),
+                    this.failures.sum(),
+                    this.cooldownDenials.sum(),
+                    this.timings.getMeanMillis(),
+                    this.timings.getPercentileMillis(50),
+                    this.timings.getPercentileMillis(95),
+                    this.timings.getMaxMillis()
+            );
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Snapshot {
+
+        private final long invocations;
+        private final long failures;
+        private final long cooldownDenials;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double maxMillis;
+    }
+}
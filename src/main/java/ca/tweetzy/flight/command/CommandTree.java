@@ -0,0 +1,145 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Token trie of the sub-commands registered on a {@link NestedCommand}.
+ * <p>
+ * Every word of a sub-command label is one level of the tree, so "give all" and "give"
+ * share the "give" node. Lookups are case-insensitive and never join or copy the arguments.
+ */
+final class CommandTree {
+
+    final Node root = new Node(null, 0);
+
+    void register(@NotNull String label, @NotNull Command command) {
+        Node node = this.root;
+
+        for (String token : label.trim().split(" +")) {
+            final Node parent = node;
+            node = parent.children.computeIfAbsent(token.toLowerCase(), key -> new Node(key, parent.depth + 1));
+        }
+
+        node.command = command;
+    }
+
+    boolean isEmpty() {
+        return this.root.children.isEmpty();
+    }
+
+    /**
+     * Walks the arguments down the tree and returns the deepest node that has a command attached.
+     * The depth of the returned node is the number of arguments that belong to the sub-command label.
+     *
+     * @param args        The raw command arguments
+     * @param allowPrefix Whether a unique prefix may stand in for the first token. Deeper tokens always have to
+     *                    match exactly, otherwise "give a" would pick "give all" over passing "a" to "give"
+     *
+     * @return The matched node, or null if no sub-command matched
+     */
+    @Nullable
+    Node resolve(@NotNull String[] args, boolean allowPrefix) {
+        return resolve(args, args.length, allowPrefix);
+    }
+
+    /**
+     * Same as {@link #resolve(String[], boolean)} but only looks at the first {@code limit} arguments
+     */
+    @Nullable
+    Node resolve(@NotNull String[] args, int limit, boolean allowPrefix) {
+        Node node = this.root;
+        Node match = null;
+
+        for (int i = 0; i < limit; i++) {
+            node = node.child(args[i], allowPrefix && i == 0);
+            if (node == null) break;
+            if (node.command != null) match = node;
+        }
+
+        return match;
+    }
+
+    /**
+     * Walks as many arguments as possible (without prefix matching) and returns the node it stopped at.
+     */
+    @NotNull
+    Node walk(@NotNull String[] args, int limit) {
+        Node node = this.root;
+
+        for (int i = 0; i < limit; i++) {
+            final Node next = node.children.get(args[i]);
+            if (next == null) break;
+            node = next;
+        }
+
+        return node;
+    }
+
+    static final class Node {
+
+        final String token;
+        final int depth;
+        final TreeMap<String, Node> children = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Command command;
+
+        Node(String token, int depth) {
+            this.token = token;
+            this.depth = depth;
+        }
+
+        @Nullable
+        Node child(@NotNull String token, boolean allowPrefix) {
+            final Node exact = this.children.get(token);
+            if (exact != null || !allowPrefix || token.isEmpty()) return exact;
+
+            // keys sharing a prefix are contiguous in the sorted map, so a unique prefix is one
+            // ceiling lookup plus a check that the next key does not share it
+            final Map.Entry<String, Node> first = this.children.ceilingEntry(token);
+            if (first == null || !startsWith(first.getKey(), token)) return null;
+
+            final Map.Entry<String, Node> second = this.children.higherEntry(first.getKey());
+            if (second != null && startsWith(second.getKey(), token)) return null;
+
+            return first.getValue();
+        }
+
+        /**
+         * @return true if this node, or anything below it, has a command matching the predicate
+         */
+        boolean anyCommand(@NotNull Predicate<Command> predicate) {
+            if (this.command != null && predicate.test(this.command)) return true;
+
+            for (Node child : this.children.values())
+                if (child.anyCommand(predicate)) return true;
+
+            return false;
+        }
+
+        static boolean startsWith(String value, String prefix) {
+            return value.regionMatches(true, 0, prefix, 0, prefix.length());
+        }
+    }
+}
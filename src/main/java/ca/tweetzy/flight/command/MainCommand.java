@@ -18,12 +18,17 @@
 
 package ca.tweetzy.flight.command;
 
+import ca.tweetzy.flight.collection.expiringmap.ExpiringMap;
 import ca.tweetzy.flight.utils.Common;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
-import java.util.Collections;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -39,8 +44,15 @@ public final class MainCommand extends Command {
     private String header = null;
     private String description;
     private boolean sortHelp = false;
+    private int helpPageSize = 0;
+    private String helpPageFooter = "&7Page &e%page%&7/&e%pages%";
     final String command;
 
+    private HelpPage helpPage;
+
+    // which help lines each player may see, short lived since permissions can change at any time
+    private final ExpiringMap<UUID, BitSet> permissionCache = ExpiringMap.builder().expiration(10, TimeUnit.SECONDS).maxSize(1024).build();
+
     protected final NestedCommand nestedCommands;
 
     public MainCommand(Plugin plugin, String command) {
@@ -53,37 +65,66 @@ public final class MainCommand extends Command {
 
     @Override
     protected ReturnType execute(CommandSender sender, String... args) {
-        sender.sendMessage("");
+        final HelpPage help = getHelpPage();
+        final BitSet visible = getVisibleCommands(sender, help);
 
-        if (header != null) {
-            Common.tell(sender, header);
-        } else {
-            Common.tell(sender, String.format("#ff8080&l%s &8» &7Version %s Created By #00a87fT#00ae7fw#00b57ee#00bb7ce#00c27at#00c877z#00ce74y", this.plugin.getDescription().getName(), this.plugin.getDescription().getVersion()));
-        }
+        int page = 1;
+        int pages = 1;
+        final int total = visible.cardinality();
 
-        sender.sendMessage("");
-        if (nestedCommands != null) {
-            List<String> commands = nestedCommands.children.values().stream().distinct().map(c -> c.getSubCommands().get(0)).collect(Collectors.toList());
+        if (this.helpPageSize > 0 && total > 0) {
+            pages = (total + this.helpPageSize - 1) / this.helpPageSize;
 
-            if (sortHelp) {
-                Collections.sort(commands);
+            if (args.length > 0) {
+                try {
+                    page = Math.max(1, Math.min(pages, Integer.parseInt(args[0])));
+                } catch (NumberFormatException ignored) {
+                }
             }
+        }
 
-            Common.tell(sender, "&8- &e" + getSyntax() + "&7 - " + getDescription());
+        sender.sendMessage("");
+        Common.send(sender, help.header);
+        sender.sendMessage("");
+        Common.send(sender, help.selfLine);
 
-            for (String cmdStr : commands) {
-                final Command cmd = nestedCommands.children.get(cmdStr);
-                if (cmd == null) continue;
-                if (cmd.getPermissionNode() == null || sender.hasPermission(cmd.getPermissionNode())) {
-                    Common.tell(sender, "&8- &e" + cmd.getSyntax() + "&7 - " + cmd.getDescription());
-                }
-            }
+        final int from = this.helpPageSize > 0 ? (page - 1) * this.helpPageSize : 0;
+        final int to = this.helpPageSize > 0 ? from + this.helpPageSize : total;
+        int shown = 0;
+
+        for (int i = visible.nextSetBit(0); i >= 0 && shown < to; i = visible.nextSetBit(i + 1), shown++) {
+            if (shown >= from)
+                Common.send(sender, help.lines[i]);
         }
 
-        Common.tell(sender, "");
+        if (pages > 1)
+            Common.tell(sender, this.helpPageFooter.replace("%page%", String.valueOf(page)).replace("%pages%", String.valueOf(pages)));
+
+        Common.send(sender, help.footer);
         return ReturnType.SUCCESS;
     }
 
+    /**
+     * @return the rendered help page, rebuilt if sub-commands, the prefix or the help settings changed
+     */
+    private HelpPage getHelpPage() {
+        final HelpPage help = this.helpPage;
+        if (help != null && help.isValid(this.nestedCommands.revision)) return help;
+
+        this.permissionCache.clear();
+        return this.helpPage = new HelpPage(this);
+    }
+
+    /**
+     * @return a bit per help line, set if the sender is allowed to use that command
+     */
+    private BitSet getVisibleCommands(CommandSender sender, HelpPage help) {
+        if (!(sender instanceof Player))
+            return help.computeVisible(sender);
+
+        return this.permissionCache.computeIfAbsent(((Player) sender).getUniqueId(), uuid -> help.computeVisible(sender));
+    }
+
     @Override
     protected List<String> tab(CommandSender sender, String... args) {
         return null;
@@ -109,16 +150,36 @@ public final class MainCommand extends Command {
      */
     public MainCommand setHeader(String header) {
         this.header = header;
+        this.helpPage = null;
         return this;
     }
 
     public MainCommand setDescription(String description) {
         this.description = description;
+        this.helpPage = null;
         return this;
     }
 
     public MainCommand setSortHelp(boolean sortHelp) {
         this.sortHelp = sortHelp;
+        this.helpPage = null;
+        return this;
+    }
+
+    /**
+     * Splits the help listing into pages of the given size, the page is picked with /command [page].
+     * 0 shows everything at once (default)
+     */
+    public MainCommand setHelpPageSize(int helpPageSize) {
+        this.helpPageSize = Math.max(0, helpPageSize);
+        return this;
+    }
+
+    /**
+     * The line shown under a paginated help listing, supports %page% and %pages%
+     */
+    public MainCommand setHelpPageFooter(String helpPageFooter) {
+        this.helpPageFooter = helpPageFooter;
         return this;
     }
 
@@ -131,4 +192,60 @@ public final class MainCommand extends Command {
         nestedCommands.addSubCommands(commands);
         return this;
     }
+
+    /**
+     * The help listing, rendered and colorized once. Only the lines a sender may see are picked per call.
+     */
+    private static final class HelpPage {
+
+        private final int revision;
+        private final String prefix;
+        private final String pluginName;
+
+        private final String header;
+        private final String selfLine;
+        private final String footer;
+        private final Command[] commands;
+        private final String[] lines;
+
+        private HelpPage(MainCommand main) {
+            this.revision = main.nestedCommands.revision;
+            this.prefix = Common.PREFIX;
+            this.pluginName = Common.PLUGIN_NAME;
+
+            this.header = render(main.header != null ? main.header : String.format("#ff8080&l%s &8» &7Version %s Created By #00a87fT#00ae7fw#00b57ee#00bb7ce#00c27at#00c877z#00ce74y", main.plugin.getDescription().getName(), main.plugin.getDescription().getVersion()));
+            this.selfLine = render("&8- &e" + main.getSyntax() + "&7 - " + main.getDescription());
+            this.footer = render("");
+
+            final List<Command> commands = main.nestedCommands.children.values().stream().distinct().collect(Collectors.toList());
+            if (main.sortHelp)
+                commands.sort(Comparator.comparing(c -> c.getSubCommands().get(0)));
+
+            this.commands = commands.toArray(new Command[0]);
+            this.lines = new String[this.commands.length];
+
+            for (int i = 0; i < this.commands.length; i++)
+                this.lines[i] = render("&8- &e" + this.commands[i].resolveSyntax() + "&7 - " + this.commands[i].getDescription());
+        }
+
+        private boolean isValid(int revision) {
+            return this.revision == revision && this.prefix.equals(Common.PREFIX) && this.pluginName.equals(Common.PLUGIN_NAME);
+        }
+
+        private BitSet computeVisible(CommandSender sender) {
+            final BitSet visible = new BitSet(this.commands.length);
+
+            for (int i = 0; i < this.commands.length; i++) {
+                final String permission = this.commands[i].getPermissionNode();
+                if (permission == null || sender.hasPermission(permission))
+                    visible.set(i);
+            }
+
+            return visible;
+        }
+
+        private static String render(String message) {
+            return Common.format(true, message);
+        }
+    }
 }
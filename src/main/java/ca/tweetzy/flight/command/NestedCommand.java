@@ -31,18 +31,30 @@ public final class NestedCommand {
 
     final Command parent;
     final LinkedHashMap<String, Command> children = new LinkedHashMap<>();
+    final CommandTree tree = new CommandTree();
+
+    // bumped whenever a sub-command is added, lets cached views (e.g. help pages) know they're stale
+    int revision = 0;
 
     protected NestedCommand(Command parent) {
         this.parent = parent;
+        if (parent != null) parent.compileArguments();
     }
 
     public NestedCommand addSubCommand(Command command) {
-        command.getSubCommands().forEach(cmd -> children.put(cmd.toLowerCase(), command));
+        command.getSubCommands().forEach(cmd -> register(cmd, command));
         return this;
     }
 
     public NestedCommand addSubCommands(Command... commands) {
-        Stream.of(commands).forEach(command -> command.getSubCommands().forEach(cmd -> children.put(cmd.toLowerCase(), command)));
+        Stream.of(commands).forEach(command -> command.getSubCommands().forEach(cmd -> register(cmd, command)));
         return this;
     }
+
+    private void register(String label, Command command) {
+        command.compileArguments();
+        children.put(label.toLowerCase(), command);
+        tree.register(label, command);
+        revision++;
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.command.argument;
+
+import org.bukkit.command.CommandSender;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Turns a single raw command argument into a typed value.
+ * <p>
+ * Parsers are created once (usually through {@link Arguments}) and shared by every invocation,
+ * so any lookup tables should be built in the constructor rather than in {@link #parse(CommandSender, String)}.
+ *
+ * @param <T> The type this parser produces
+ */
+public interface ArgumentParser<T> {
+
+    /**
+     * @param sender The sender running the command
+     * @param input  The raw argument, or every remaining argument joined by spaces if {@link #isGreedy()}
+     *
+     * @return The parsed value
+     *
+     * @throws ArgumentParseException if the input is not valid, the message is shown to the sender
+     */
+    T parse(CommandSender sender, String input) throws ArgumentParseException;
+
+    /**
+     * @return suggestions for the argument being typed, they are filtered by prefix afterwards
+     */
+    default List<String> suggest(CommandSender sender, String input) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * A greedy parser consumes every remaining argument, it can only be the last argument of a command
+     */
+    default boolean isGreedy() {
+        return false;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.command.argument;
+
+import lombok.NonNull;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * The compiled, immutable argument list of a command.
+ * <p>
+ * Built once when the command is registered, parsing an invocation walks a plain array
+ * and never allocates more than the resulting values.
+ */
+public final class ArgumentSchema {
+
+    public static final ArgumentSchema EMPTY = new ArgumentSchema(new CommandArgument<?>[0]);
+
+    private final CommandArgument<?>[] arguments;
+    private final Map<String, Integer> indexes;
+    private final int required;
+    private final String usage;
+
+    private ArgumentSchema(CommandArgument<?>[] arguments) {
+        this.arguments = arguments;
+        this.indexes = new HashMap<>(arguments.length * 2);
+
+        int required = 0;
+        final StringJoiner usage = new StringJoiner(" ");
+
+        for (int i = 0; i < arguments.length; i++) {
+            this.indexes.put(arguments[i].getName().toLowerCase(), i);
+            if (!arguments[i].isOptional()) required++;
+            usage.add(arguments[i].getUsage());
+        }
+
+        this.required = required;
+        this.usage = usage.toString();
+    }
+
+    /**
+     * Validates and compiles a list of arguments
+     *
+     * @throws IllegalArgumentException if a required argument follows an optional one, a greedy argument
+     *                                  isn't last or two arguments share a name
+     */
+    public static ArgumentSchema compile(@NonNull final List<CommandArgument<?>> arguments) {
+        if (arguments.isEmpty()) return EMPTY;
+
+        final Set<String> names = new HashSet<>();
+        boolean optional = false;
+
+        for (int i = 0; i < arguments.size(); i++) {
+            final CommandArgument<?> argument = arguments.get(i);
+
+            if (!names.add(argument.getName().toLowerCase()))
+                throw new IllegalArgumentException("Duplicate argument name: " + argument.getName());
+
+            if (optional && !argument.isOptional())
+                throw new IllegalArgumentException("Required argument " + argument.getName() + " cannot follow an optional argument");
+
+            if (argument.getParser().isGreedy() && i != arguments.size() - 1)
+                throw new IllegalArgumentException("Greedy argument " + argument.getName() + " must be the last argument");
+
+            optional |= argument.isOptional();
+        }
+
+        return new ArgumentSchema(arguments.toArray(new CommandArgument<?>[0]));
+    }
+
+    public boolean isEmpty() {
+        return this.arguments.length == 0;
+    }
+
+    public List<CommandArgument<?>> getArguments() {
+        return Collections.unmodifiableList(Arrays.asList(this.arguments));
+    }
+
+    /**
+     * @return the arguments as they appear in a syntax line, e.g. {@code <player> <amount> [reason]}
+     */
+    public String getUsage() {
+        return this.usage;
+    }
+
+    /**
+     * Parses the raw arguments into typed values
+     *
+     * @throws ArgumentParseException if an argument is invalid, or null message if there are too few / too many arguments
+     */
+    @NotNull
+    public ParsedArguments parse(@NotNull CommandSender sender, @NotNull String[] args) throws ArgumentParseException {
+        if (this.arguments.length == 0)
+            return new ParsedArguments(this, new Object[0], args);
+
+        if (args.length < this.required)
+            throw new ArgumentParseException(null);
+
+        final boolean greedy = this.arguments[this.arguments.length - 1].getParser().isGreedy();
+        if (!greedy && args.length > this.arguments.length)
+            throw new ArgumentParseException(null);
+
+        final Object[] values = new Object[this.arguments.length];
+
+        for (int i = 0; i < this.arguments.length && i < args.length; i++) {
+            final ArgumentParser<?> parser = this.arguments[i].getParser();
+            final String input = parser.isGreedy() ? join(args, i) : args[i];
+
+            values[i] = parser.parse(sender, input);
+        }
+
+        return new ParsedArguments(this, values, args);
+    }
+
+    /**
+     * @return the suggestions for the last argument being typed, unfiltered
+     */
+    @NotNull
+    public List<String> suggest(@NotNull CommandSender sender, @NotNull String[] args) {
+        if (this.arguments.length == 0 || args.length == 0) return new ArrayList<>();
+
+        int index = args.length - 1;
+        String input = args[index];
+
+        if (index >= this.arguments.length) {
+            final CommandArgument<?> last = this.arguments[this.arguments.length - 1];
+            if (!last.getParser().isGreedy()) return new ArrayList<>();
+
+            index = this.arguments.length - 1;
+            input = join(args, index);
+        }
+
+        return new ArrayList<>(this.arguments[index].getParser().suggest(sender, input));
+    }
+
+    int indexOf(String name) {
+        final Integer index = this.indexes.get(name.toLowerCase());
+        if (index == null) throw new IllegalArgumentException("Unknown argument: " + name);
+        return index;
+    }
+
+    private static String join(String[] args, int from) {
+        if (from == args.length - 1) return args[from];
+
+        final StringBuilder builder = new StringBuilder();
+        for (int i = from; i < args.length; i++) {
+            if (i != from) builder.append(' ');
+            builder.append(args[i]);
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.command.argument;
+
+import ca.tweetzy.flight.comp.enums.CompMaterial;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The built-in {@link ArgumentParser}s. Each call creates a parser, lookup tables are
+ * built once at that point so parsing a command is only a map or array lookup.
+ */
+@UtilityClass
+public final class Arguments {
+
+    private final List<String> BOOLEANS = Collections.unmodifiableList(Arrays.asList("true", "false"));
+    private final List<String> MATERIAL_NAMES = buildMaterialNames();
+
+    public ArgumentParser<String> string() {
+        return (sender, input) -> input;
+    }
+
+    /**
+     * Consumes every remaining argument, joined by spaces
+     */
+    public ArgumentParser<String> greedyString() {
+        return new ArgumentParser<String>() {
+            @Override
+            public String parse(CommandSender sender, String input) {
+                return input;
+            }
+
+            @Override
+            public boolean isGreedy() {
+                return true;
+            }
+        };
+    }
+
+    public ArgumentParser<Integer> integer() {
+        return integer(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public ArgumentParser<Integer> integer(final int min, final int max) {
+        return (sender, input) -> {
+            final int value;
+            try {
+                value = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                throw new ArgumentParseException("&c" + input + " is not a whole number!");
+            }
+
+            if (value < min || value > max)
+                throw new ArgumentParseException("&cThe number must be between " + min + " and " + max + "!");
+
+            return value;
+        };
+    }
+
+    public ArgumentParser<Double> decimal() {
+        return decimal(-Double.MAX_VALUE, Double.MAX_VALUE);
+    }
+
+    public ArgumentParser<Double> decimal(final double min, final double max) {
+        return (sender, input) -> {
+            final double value;
+            try {
+                value = Double.parseDouble(input);
+            } catch (NumberFormatException e) {
+                throw new ArgumentParseException("&c" + input + " is not a number!");
+            }
+
+            if (Double.isNaN(value) || value < min || value > max)
+                throw new ArgumentParseException("&cThe number must be between " + min + " and " + max + "!");
+
+            return value;
+        };
+    }
+
+    public ArgumentParser<Boolean> bool() {
+        return new ArgumentParser<Boolean>() {
+            @Override
+            public Boolean parse(CommandSender sender, String input) throws ArgumentParseException {
+                if (input.equalsIgnoreCase("true") || input.equalsIgnoreCase("yes")) return true;
+                if (input.equalsIgnoreCase("false") || input.equalsIgnoreCase("no")) return false;
+                throw new ArgumentParseException("&c" + input + " must be true or false!");
+            }
+
+            @Override
+            public List<String> suggest(CommandSender sender, String input) {
+                return BOOLEANS;
+            }
+        };
+    }
+
+    /**
+     * An online player, matched by exact name first then by the start of their name
+     */
+    public ArgumentParser<Player> player() {
+        return new ArgumentParser<Player>() {
+            @Override
+            public Player parse(CommandSender sender, String input) throws ArgumentParseException {
+                Player player = Bukkit.getPlayerExact(input);
+                if (player == null) player = Bukkit.getPlayer(input);
+                if (player == null) throw new ArgumentParseException("&cCould not find the player &4" + input);
+                return player;
+            }
+
+            @Override
+            public List<String> suggest(CommandSender sender, String input) {
+                final List<String> names = new ArrayList<>();
+                final Player viewer = sender instanceof Player ? (Player) sender : null;
+
+                for (Player player : Bukkit.getOnlinePlayers())
+                    if (viewer == null || viewer.canSee(player))
+                        names.add(player.getName());
+
+                return names;
+            }
+        };
+    }
+
+    /**
+     * A player that has joined before, does not hit the mojang api for unknown names
+     */
+    public ArgumentParser<OfflinePlayer> offlinePlayer() {
+        final ArgumentParser<Player> online = player();
+
+        return new ArgumentParser<OfflinePlayer>() {
+            @Override
+            public OfflinePlayer parse(CommandSender sender, String input) throws ArgumentParseException {
+                final Player player = Bukkit.getPlayerExact(input);
+                if (player != null) return player;
+
+                for (OfflinePlayer offline : Bukkit.getOfflinePlayers())
+                    if (input.equalsIgnoreCase(offline.getName()))
+                        return offline;
+
+                throw new ArgumentParseException("&cCould not find the player &4" + input);
+            }
+
+            @Override
+            public List<String> suggest(CommandSender sender, String input) {
+                return online.suggest(sender, input);
+            }
+        };
+    }
+
+    /**
+     * A duration such as {@code 1d12h30m}, {@code 90s} or {@code 2w}, the value is in milliseconds.
+     * Supported units are w, d, h, m, s and ms, a number without a unit is read as seconds.
+     */
+    public ArgumentParser<Long> duration() {
+        return (sender, input) -> {
+            final long millis = parseDuration(input);
+            if (millis < 0) throw new ArgumentParseException("&c" + input + " is not a valid duration, e.g. &41d12h30m");
+            return millis;
+        };
+    }
+
+    public ArgumentParser<CompMaterial> material() {
+        return new ArgumentParser<CompMaterial>() {
+            @Override
+            public CompMaterial parse(CommandSender sender, String input) throws ArgumentParseException {
+                final Optional<CompMaterial> material = input.isEmpty() ? Optional.empty() : CompMaterial.matchCompMaterial(input);
+                if (!material.isPresent() || !material.get().isSupported())
+                    throw new ArgumentParseException("&c" + input + " is not a valid material!");
+                return material.get();
+            }
+
+            @Override
+            public List<String> suggest(CommandSender sender, String input) {
+                return MATERIAL_NAMES;
+            }
+        };
+    }
+
+    public <E extends Enum<E>> ArgumentParser<E> enumOf(@NonNull final Class<E> type) {
+        final E[] constants = type.getEnumConstants();
+        final Map<String, E> lookup = new HashMap<>(constants.length * 2);
+        final List<String> names = new ArrayList<>(constants.length);
+
+        for (E constant : constants) {
+            final String name = constant.name().toLowerCase();
+            lookup.put(name, constant);
+            names.add(name);
+        }
+
+        return choice(lookup, Collections.unmodifiableList(names));
+    }
+
+    /**
+     * One of a fixed set of words (case-insensitive)
+     */
+    public ArgumentParser<String> choice(@NonNull final String... options) {
+        final Map<String, String> lookup = new HashMap<>(options.length * 2);
+        for (String option : options)
+            lookup.put(option.toLowerCase(), option);
+
+        return choice(lookup, Collections.unmodifiableList(Arrays.asList(options)));
+    }
+
+    private <T> ArgumentParser<T> choice(final Map<String, T> lookup, final List<String> suggestions) {
+        return new ArgumentParser<T>() {
+            @Override
+            public T parse(CommandSender sender, String input) throws ArgumentParseException {
+                final T value = lookup.get(input.toLowerCase());
+                if (value == null)
+                    throw new ArgumentParseException("&c" + input + " is not valid, options: &4" + String.join(", ", suggestions));
+                return value;
+            }
+
+            @Override
+            public List<String> suggest(CommandSender sender, String input) {
+                return suggestions;
+            }
+        };
+    }
+
+    /**
+     * @return the duration in milliseconds, or -1 if it could not be parsed
+     */
+    long parseDuration(final String input) {
+        if (input.isEmpty()) return -1;
+
+        long total = 0;
+        int i = 0;
+        final int length = input.length();
+
+        while (i < length) {
+            long number = 0;
+            final int start = i;
+
+            while (i < length && input.charAt(i) >= '0' && input.charAt(i) <= '9') {
+                number = number * 10 + (input.charAt(i) - '0');
+                if (number > Integer.MAX_VALUE) return -1;
+                i++;
+            }
+
+            if (i == start) return -1;
+
+            final int unitStart = i;
+            while (i < length && Character.isLetter(input.charAt(i))) i++;
+
+            final long unit = unitMillis(input, unitStart, i);
+            if (unit < 0) return -1;
+
+            total += number * unit;
+        }
+
+        return total;
+    }
+
+    private long unitMillis(final String input, final int start, final int end) {
+        switch (end - start) {
+            case 0:
+                return TimeUnit.SECONDS.toMillis(1);
+            case 1:
+                switch (Character.toLowerCase(input.charAt(start))) {
+                    case 'w':
+                        return TimeUnit.DAYS.toMillis(7);
+                    case 'd':
+                        return TimeUnit.DAYS.toMillis(1);
+                    case 'h':
+                        return TimeUnit.HOURS.toMillis(1);
+                    case 'm':
+                        return TimeUnit.MINUTES.toMillis(1);
+                    case 's':
+                        return TimeUnit.SECONDS.toMillis(1);
+                    default:
+                        return -1;
+                }
+            case 2:
+                return input.regionMatches(true, start, "ms", 0, 2) ? 1 : -1;
+            default:
+                return -1;
+        }
+    }
+
+    private List<String> buildMaterialNames() {
+        final List<String> names = new ArrayList<>();
+        for (CompMaterial material : CompMaterial.values())
+            if (material.isSupported())
+                names.add(material.name().toLowerCase());
+
+        return Collections.unmodifiableList(names);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.command.argument;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A named, typed argument of a command.
+ *
+ * @param <T> The type of the parsed value
+ */
+@Getter
+public final class CommandArgument<T> {
+
+    private final String name;
+    private final ArgumentParser<T> parser;
+    private final boolean optional;
+
+    private CommandArgument(@NonNull final String name, @NonNull final ArgumentParser<T> parser, final boolean optional) {
+        this.name = name;
+        this.parser = parser;
+        this.optional = optional;
+    }
+
+    public static <T> CommandArgument<T> required(@NonNull final String name, @NonNull final ArgumentParser<T> parser) {
+        return new CommandArgument<>(name, parser, false);
+    }
+
+    public static <T> CommandArgument<T> optional(@NonNull final String name, @NonNull final ArgumentParser<T> parser) {
+        return new CommandArgument<>(name, parser, true);
+    }
+
+    /**
+     * @return the argument as it appears in a syntax line, {@code <name>} or {@code [name]}
+     */
+    public String getUsage() {
+        return this.optional ? "[" + this.name + "]" : "<" + this.name + ">";
+    }
+}
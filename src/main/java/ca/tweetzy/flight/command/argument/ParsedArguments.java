@@ -0,0 +1,76 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.command.argument;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The typed values of a command invocation, produced by {@link ArgumentSchema#parse}.
+ * Optional arguments that weren't given are null.
+ */
+public final class ParsedArguments {
+
+    private final ArgumentSchema schema;
+    private final Object[] values;
+    private final String[] raw;
+
+    ParsedArguments(ArgumentSchema schema, Object[] values, String[] raw) {
+        this.schema = schema;
+        this.values = values;
+        this.raw = raw;
+    }
+
+    /**
+     * @return the value of the argument with the given name, or null if it was optional and not given
+     *
+     * @throws IllegalArgumentException if the command has no argument with that name
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name) {
+        return (T) this.values[this.schema.indexOf(name)];
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(int index) {
+        return (T) this.values[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getOr(String name, T fallback) {
+        final Object value = this.values[this.schema.indexOf(name)];
+        return value == null ? fallback : (T) value;
+    }
+
+    public boolean has(String name) {
+        return this.values[this.schema.indexOf(name)] != null;
+    }
+
+    public int size() {
+        return this.values.length;
+    }
+
+    /**
+     * @return the raw arguments the values were parsed from
+     */
+    public String[] raw() {
+        return this.raw;
+    }
+}
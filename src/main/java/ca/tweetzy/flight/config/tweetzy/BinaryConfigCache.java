@@ -0,0 +1,232 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.config.tweetzy;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary copy of a parsed YAML file, so an unchanged file doesn't have to go through SnakeYAML again.
+ * <p>
+ * The cache remembers the modification time and checksum of the YAML it was created from and is ignored as soon as either differs.
+ * Only plain YAML data (strings, numbers, booleans, lists and maps) can be cached, files holding anything else are simply not cached.
+ */
+final class BinaryConfigCache {
+
+    private static final int MAGIC = 0x464C4346; // FLCF
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0, STRING = 1, INTEGER = 2, LONG = 3, DOUBLE = 4, BOOLEAN = 5, LIST = 6, MAP = 7, BIG_INTEGER = 8;
+
+    private BinaryConfigCache() {
+    }
+
+    static @NotNull Path cacheFileOf(@NotNull Path yamlFile) {
+        return yamlFile.resolveSibling(yamlFile.getFileName() + ".cache");
+    }
+
+    static long checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+
+        return crc.getValue();
+    }
+
+    /**
+     * @return the cached values, or null if there is no cache or it doesn't match the YAML file anymore
+     */
+    static @Nullable Map<?, ?> read(@NotNull Path cacheFile, long modified, long checksum) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION || in.readLong() != modified || in.readLong() != checksum) {
+                return null;
+            }
+
+            Object values = readValue(in);
+            return values instanceof Map ? (Map<?, ?>) values : null;
+        } catch (IOException | RuntimeException ex) {
+            // corrupt or from an older format, the yaml gets parsed instead
+            return null;
+        }
+    }
+
+    /**
+     * Writes the cache, nothing is written (and an old cache is removed) if the values hold anything that can't be cached
+     */
+    static void write(@NotNull Path cacheFile, long modified, long checksum, @NotNull Map<?, ?> values) throws IOException {
+        Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(FORMAT_VERSION);
+                out.writeLong(modified);
+                out.writeLong(checksum);
+
+                writeValue(out, values);
+            }
+
+            try {
+                Files.move(temp, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (NotCacheableException ex) {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(cacheFile);
+        } catch (IOException ex) {
+            // don't leave a half written cache behind
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+
+            throw ex;
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException, NotCacheableException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof List) {
+            out.writeByte(LIST);
+            out.writeInt(((List<?>) value).size());
+
+            for (Object element : (List<?>) value) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            out.writeInt(((Map<?, ?>) value).size());
+
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            throw new NotCacheableException(value);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+
+                return list;
+            }
+            case MAP: {
+                int size = in.readInt();
+                Map<Object, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+
+                for (int i = 0; i < size; i++) {
+                    Object key = readValue(in);
+                    map.put(key, readValue(in));
+                }
+
+                return map;
+            }
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The values hold something that isn't plain YAML data, the file is left uncached
+     */
+    private static final class NotCacheableException extends Exception {
+        private NotCacheableException(Object value) {
+            super("Cannot cache " + value.getClass().getName(), null, false, false);
+        }
+    }
+}
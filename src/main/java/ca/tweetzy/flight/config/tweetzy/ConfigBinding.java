@@ -0,0 +1,214 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.config.tweetzy;
+
+import ca.tweetzy.flight.comp.enums.CompMaterial;
+import ca.tweetzy.flight.config.ConfigEntry;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Binds a {@link TweetzyYamlConfig} to a plain settings class.
+ * <p>
+ * Every field annotated with {@link ConfigKey} is filled from the config, converted to the field type and validated
+ * once per load. The result is an immutable snapshot that is swapped atomically whenever the config is (re)loaded,
+ * so hot code (and async threads) can read plain fields without going through {@link ConfigEntry#get()}.
+ * <p>
+ * The settings class needs a no-args constructor. Fields may be final, but must not have a constant
+ * initializer (e.g. <code>final int amount = 5;</code>) as javac inlines those.
+ *
+ * @param <T> the settings class
+ * @since 3.24.0
+ */
+public final class ConfigBinding<T> {
+
+    private final TweetzyYamlConfig config;
+    private final Class<T> type;
+    private final Constructor<T> constructor;
+    private final List<BoundField> fields;
+    private final AtomicReference<T> snapshot = new AtomicReference<>();
+
+    ConfigBinding(@NotNull TweetzyYamlConfig config, @NotNull Class<T> type) {
+        this.config = config;
+        this.type = type;
+
+        try {
+            this.constructor = type.getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalArgumentException(type.getName() + " needs a no-args constructor to be bound to a config", ex);
+        }
+
+        this.fields = Collections.unmodifiableList(compileFields(type));
+        this.snapshot.set(create());
+    }
+
+    /**
+     * @return the current snapshot, never null
+     */
+    public @NotNull T get() {
+        return this.snapshot.get();
+    }
+
+    /**
+     * Rebuilds the snapshot from the current config values, useful after changing values through entries.
+     * The old snapshot stays in place if the values are invalid.
+     *
+     * @return the new snapshot
+     *
+     * @throws IllegalStateException if a value can't be converted to its field type
+     */
+    public @NotNull T refresh() {
+        final T created = create();
+        this.snapshot.set(created);
+
+        return created;
+    }
+
+    public @NotNull Class<T> getType() {
+        return this.type;
+    }
+
+    /**
+     * Called after every load, an invalid config is logged and the previous snapshot is kept
+     */
+    void onLoad() {
+        try {
+            refresh();
+        } catch (IllegalStateException ex) {
+            this.config.logger.log(Level.SEVERE, "Keeping the previous " + this.type.getSimpleName() + " values of '" + this.config.file.getPath() + "'", ex);
+        }
+    }
+
+    private T create() {
+        final T instance;
+
+        try {
+            instance = this.constructor.newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Could not create " + this.type.getName(), ex);
+        }
+
+        for (BoundField field : this.fields) {
+            Object value = this.config.get(field.key);
+
+            if (value == null) {
+                final ConfigEntry entry = this.config.configEntries.get(field.key);
+                value = entry == null ? null : entry.getDefaultValue();
+            }
+
+            if (value == null) {
+                if (field.field.getType().isPrimitive()) {
+                    throw new IllegalStateException("Missing value for '" + field.key + "' (" + field.field.getName() + ")");
+                }
+
+                // keep whatever the constructor assigned
+                continue;
+            }
+
+            final Object converted;
+            try {
+                converted = field.converter.apply(value);
+            } catch (RuntimeException ex) {
+                throw new IllegalStateException("Invalid value for '" + field.key + "', expected " + field.field.getType().getSimpleName() + " but got: " + value, ex);
+            }
+
+            if (converted == null) {
+                throw new IllegalStateException("Invalid value for '" + field.key + "', expected " + field.field.getType().getSimpleName() + " but got: " + value);
+            }
+
+            try {
+                field.field.set(instance, converted);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException("Could not set " + this.type.getSimpleName() + "#" + field.field.getName(), ex);
+            }
+        }
+
+        return instance;
+    }
+
+    private static List<BoundField> compileFields(Class<?> type) {
+        final List<BoundField> fields = new ArrayList<>();
+
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                final ConfigKey key = field.getAnnotation(ConfigKey.class);
+                if (key == null) continue;
+
+                if (Modifier.isStatic(field.getModifiers())) {
+                    throw new IllegalArgumentException("@ConfigKey field " + clazz.getSimpleName() + "#" + field.getName() + " must not be static");
+                }
+
+                field.setAccessible(true);
+                fields.add(new BoundField(key.value(), field, converterFor(field.getType())));
+            }
+        }
+
+        return fields;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<Object, Object> converterFor(Class<?> type) {
+        // numbers and booleans are parsed the same way ConfigEntry#getInt and friends do
+        if (type == String.class) return Object::toString;
+        if (type == int.class || type == Integer.class) return value -> (int) Double.parseDouble(value.toString());
+        if (type == long.class || type == Long.class) return value -> value instanceof Number ? ((Number) value).longValue() : (long) Double.parseDouble(value.toString());
+        if (type == double.class || type == Double.class) return value -> Double.parseDouble(value.toString());
+        if (type == float.class || type == Float.class) return value -> (float) Double.parseDouble(value.toString());
+        if (type == boolean.class || type == Boolean.class) return value -> Boolean.parseBoolean(value.toString());
+        if (type == CompMaterial.class) return value -> CompMaterial.matchCompMaterial(value.toString()).orElse(null);
+
+        if (type.isEnum()) {
+            return value -> {
+                for (Object constant : type.getEnumConstants())
+                    if (((Enum) constant).name().equalsIgnoreCase(value.toString())) return constant;
+
+                return null;
+            };
+        }
+
+        if (type == List.class) {
+            return value -> value instanceof List ? Collections.unmodifiableList(new ArrayList<>((List<?>) value)) : null;
+        }
+
+        return value -> type.isInstance(value) ? value : null;
+    }
+
+    private static final class BoundField {
+
+        private final String key;
+        private final Field field;
+        private final Function<Object, Object> converter;
+
+        private BoundField(@NotNull String key, @NotNull Field field, @NotNull Function<Object, Object> converter) {
+            this.key = key;
+            this.field = field;
+            this.converter = converter;
+        }
+    }
+}
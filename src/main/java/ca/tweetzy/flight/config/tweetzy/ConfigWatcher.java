@@ -0,0 +1,173 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.config.tweetzy;
+
+import ca.tweetzy.flight.collection.expiringmap.internal.NamedThreadFactory;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches config files on disk and hot reloads them when they are edited.
+ * <p>
+ * Bursts of file events (editors often write a file more than once) are debounced into one
+ * {@link TweetzyYamlConfig#reloadAsync(Plugin)}, which fires the config's change listeners with the keys that differ.
+ * Writes made by {@link TweetzyYamlConfig#save()} itself are ignored.
+ *
+ * @since 3.24.0
+ */
+public final class ConfigWatcher implements AutoCloseable {
+
+    private final Plugin plugin;
+    private final Map<Path, TweetzyYamlConfig> configs = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final Map<Path, ScheduledFuture<?>> pendingReloads = new ConcurrentHashMap<>();
+
+    private volatile long debounceMillis = 500;
+    private WatchService watchService;
+    private ScheduledExecutorService scheduler;
+
+    public ConfigWatcher(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Sets how long a file has to be quiet before it gets reloaded, defaults to 500ms
+     */
+    public ConfigWatcher debounce(long time, @NotNull TimeUnit unit) {
+        this.debounceMillis = unit.toMillis(time);
+        return this;
+    }
+
+    /**
+     * Starts watching the config's file, the watcher is started if it isn't running yet
+     *
+     * @throws IOException if the directory of the file can't be watched
+     */
+    public synchronized ConfigWatcher watch(@NotNull TweetzyYamlConfig config) throws IOException {
+        start();
+
+        final Path file = config.file.toPath().toAbsolutePath().normalize();
+        final Path directory = file.getParent();
+
+        if (!this.directories.containsValue(directory)) {
+            final WatchKey key = directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            this.directories.put(key, directory);
+        }
+
+        this.configs.put(file, config);
+        return this;
+    }
+
+    public void unwatch(@NotNull TweetzyYamlConfig config) {
+        final Path file = config.file.toPath().toAbsolutePath().normalize();
+
+        this.configs.remove(file);
+
+        final ScheduledFuture<?> pending = this.pendingReloads.remove(file);
+        if (pending != null) pending.cancel(false);
+    }
+
+    private void start() throws IOException {
+        if (this.watchService != null) return;
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(this.plugin.getName() + "-ConfigWatcher-Debounce"));
+
+        final WatchService service = this.watchService;
+        new NamedThreadFactory(this.plugin.getName() + "-ConfigWatcher").newThread(() -> poll(service)).start();
+    }
+
+    private void poll(WatchService service) {
+        try {
+            while (true) {
+                final WatchKey key = service.take();
+                final Path directory = this.directories.get(key);
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+
+                    final Path file = directory.resolve((Path) event.context()).toAbsolutePath().normalize();
+                    if (this.configs.containsKey(file))
+                        scheduleReload(file);
+                }
+
+                if (!key.reset())
+                    this.directories.remove(key);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // closed
+        }
+    }
+
+    private void scheduleReload(Path file) {
+        this.pendingReloads.compute(file, (path, pending) -> {
+            if (pending != null) pending.cancel(false);
+            return this.scheduler.schedule(() -> reload(path), this.debounceMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void reload(Path file) {
+        this.pendingReloads.remove(file);
+
+        final TweetzyYamlConfig config = this.configs.get(file);
+        if (config == null || config.isOwnWrite() || !this.plugin.isEnabled()) return;
+
+        try {
+            config.reloadAsync(this.plugin);
+        } catch (RuntimeException ex) {
+            this.plugin.getLogger().log(Level.WARNING, "Could not hot reload " + file, ex);
+        }
+    }
+
+    /**
+     * Stops watching every file, pending reloads are dropped
+     */
+    @Override
+    public synchronized void close() {
+        if (this.watchService == null) return;
+
+        try {
+            this.watchService.close();
+        } catch (IOException ignored) {
+        }
+
+        this.scheduler.shutdownNow();
+        this.watchService = null;
+
+        this.configs.clear();
+        this.directories.clear();
+        this.pendingReloads.clear();
+    }
+}
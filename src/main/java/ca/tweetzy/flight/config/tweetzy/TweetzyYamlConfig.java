@@ -23,30 +23,46 @@ import ca.tweetzy.flight.config.ReadOnlyConfigEntry;
 import ca.tweetzy.flight.config.yaml.YamlConfigEntry;
 import ca.tweetzy.flight.config.yaml.YamlConfiguration;
 import ca.tweetzy.flight.utils.Pair;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 // TODO: replace all config related exceptions with custom exceptions
-// TODO: Allow registering load-Listeners
-// TODO: Provide method to only save if changed
 
 /**
  * The original author of this code is SpraxDev, the original is from SongodaCore,
@@ -63,6 +79,22 @@ public class TweetzyYamlConfig extends YamlConfiguration {
 
     protected final Map<String, ConfigEntry> configEntries = new LinkedHashMap<>(0);
 
+    private final List<Consumer<? super TweetzyYamlConfig>> loadListeners = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<? super TweetzyYamlConfig, Set<String>>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private volatile long lastSaveModified = -1;
+    private volatile boolean binaryCache = false;
+
+    // true once the values differ from what was last loaded or saved
+    private volatile boolean dirty = false;
+    private volatile boolean saveScheduled = false;
+    private volatile long saveDelayTicks = 20;
+
+    // snapshots are numbered, so a slow write can't overwrite a newer one
+    private final Object saveLock = new Object();
+    private final AtomicLong saveGeneration = new AtomicLong();
+    private long writtenGeneration = 0;
+
     public TweetzyYamlConfig(@NotNull JavaPlugin plugin, @NotNull File file) {
         this(file, plugin.getLogger());
     }
@@ -137,6 +169,48 @@ public class TweetzyYamlConfig extends YamlConfiguration {
         return entry;
     }
 
+    /**
+     * Binds the config to a settings class, see {@link ConfigBinding} for the requirements on the class.<br>
+     * The snapshot is rebuilt after every {@link #load()}.
+     *
+     * @throws IllegalArgumentException if the class can't be bound
+     * @throws IllegalStateException    if the current values don't fit the class
+     * @since 3.24.0
+     */
+    public <T> ConfigBinding<T> bind(@NotNull Class<T> type) {
+        ConfigBinding<T> binding = new ConfigBinding<>(this, type);
+        addLoadListener(config -> binding.onLoad());
+
+        return binding;
+    }
+
+    /**
+     * Registers a listener that is called every time the config has been loaded (after upgrading and applying defaults)
+     *
+     * @since 3.24.0
+     */
+    public void addLoadListener(@NotNull Consumer<? super TweetzyYamlConfig> listener) {
+        this.loadListeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeLoadListener(@NotNull Consumer<? super TweetzyYamlConfig> listener) {
+        this.loadListeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener that is called on the main thread after {@link #reloadAsync(Plugin)} swapped in values
+     * that differ from the previous ones, together with the (dotted) keys of every value that was added, changed or removed
+     *
+     * @since 3.24.0
+     */
+    public void addChangeListener(@NotNull BiConsumer<? super TweetzyYamlConfig, Set<String>> listener) {
+        this.changeListeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeChangeListener(@NotNull BiConsumer<? super TweetzyYamlConfig, Set<String>> listener) {
+        this.changeListeners.remove(listener);
+    }
+
     public TweetzyYamlConfig withVersion(int version) {
         return withVersion("version", version, () -> "Don't touch this – it's used to track the version of the config.");
     }
@@ -159,7 +233,23 @@ public class TweetzyYamlConfig extends YamlConfiguration {
         return this;
     }
 
+    /**
+     * Keeps a binary copy of the parsed file next to it (<code>&lt;file&gt;.cache</code>), so {@link #load()} can skip
+     * parsing the YAML as long as the file wasn't changed. Worth it for big files, e.g. locales.
+     *
+     * @since 3.24.0
+     */
+    public TweetzyYamlConfig withBinaryCache(boolean binaryCache) {
+        this.binaryCache = binaryCache;
+        return this;
+    }
+
     public void load() throws IOException {
+        if (this.binaryCache) {
+            loadWithBinaryCache();
+            return;
+        }
+
         try (Reader reader = Files.newBufferedReader(this.file.toPath(), StandardCharsets.UTF_8)) {
             load(reader);
         } catch (FileNotFoundException ignore) {
@@ -168,25 +258,318 @@ public class TweetzyYamlConfig extends YamlConfiguration {
         }
     }
 
+    private void loadWithBinaryCache() throws IOException {
+        try {
+            long modified = this.file.lastModified();
+            byte[] content = Files.readAllBytes(this.file.toPath());
+            long checksum = BinaryConfigCache.checksum(content);
+            Path cacheFile = BinaryConfigCache.cacheFileOf(this.file.toPath());
+
+            Map<?, ?> cached = BinaryConfigCache.read(cacheFile, modified, checksum);
+
+            if (cached != null) {
+                loadValues(cached);
+            } else {
+                try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+                    super.load(reader);
+                }
+
+                try {
+                    BinaryConfigCache.write(cacheFile, modified, checksum, this.values);
+                } catch (IOException ex) {
+                    this.logger.log(Level.WARNING, "Unable to write the cache of '" + this.file.getPath() + "'", ex);
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException("Unable to load '" + this.file.getPath() + "'", e);
+        }
+
+        afterLoad();
+    }
+
+    /**
+     * Reloads the file without blocking the calling thread.<br>
+     * Reading, parsing, version upgrades and defaults happen on an async task against a staging copy,
+     * the result is swapped in on the main thread in one go. If anything fails, the error is logged,
+     * the returned future completes exceptionally and the current values are left untouched.<br>
+     * Subclasses that override {@link #upgradeOldConfigVersion()} or {@link #upgradeOldConfigVersionByOne()} get the
+     * same upgrade as {@link #load()}: their hooks run on the main thread right after the parsed values are swapped in.
+     *
+     * @return a future that completes on the main thread once the new values are live
+     * @since 3.24.0
+     */
+    public CompletableFuture<TweetzyYamlConfig> reloadAsync(@NotNull Plugin plugin) {
+        CompletableFuture<TweetzyYamlConfig> future = new CompletableFuture<>();
+        // overridden hooks work on this config and not on a staging copy, so they have to run on the main thread
+        boolean customUpgrade = overrides("upgradeOldConfigVersion") || overrides("upgradeOldConfigVersionByOne");
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            TweetzyYamlConfig staging;
+            Set<String> stagedChanges;
+
+            try {
+                staging = new TweetzyYamlConfig(this.file, this.logger).withBinaryCache(this.binaryCache);
+                staging.load();
+
+                if (!customUpgrade) {
+                    upgradeOldConfigVersion(staging);
+                    applyDefaults(staging);
+                }
+
+                stagedChanges = customUpgrade ? null : changedKeys(getPathIndex(), staging.getPathIndex());
+            } catch (IOException | RuntimeException ex) {
+                this.logger.log(Level.SEVERE, "Failed to reload config file, keeping the current values: " + this.file.getPath(), ex);
+                future.completeExceptionally(ex);
+                return;
+            }
+
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                Set<String> changedKeys = stagedChanges;
+
+                if (customUpgrade) {
+                    // replaceValues swaps the path index instead of changing it, so this stays the old state
+                    Map<String, Object> previous = getPathIndex();
+                    YamlConfiguration backup = createSnapshot();
+                    boolean wasDirty = this.dirty;
+
+                    try {
+                        replaceValues(staging);
+                        this.dirty = false;
+
+                        upgradeOldConfigVersion();
+                        applyDefaults(this);
+                    } catch (IOException | RuntimeException ex) {
+                        replaceValues(backup);
+                        this.dirty = wasDirty;
+
+                        this.logger.log(Level.SEVERE, "Failed to reload config file, keeping the current values: " + this.file.getPath(), ex);
+                        future.completeExceptionally(ex);
+                        return;
+                    }
+
+                    changedKeys = changedKeys(previous, getPathIndex());
+                } else {
+                    replaceValues(staging);
+                    this.dirty = staging.dirty;
+                }
+
+                notifyLoadListeners();
+
+                if (!changedKeys.isEmpty()) {
+                    notifyChangeListeners(changedKeys);
+                }
+
+                future.complete(this);
+            });
+        });
+
+        return future;
+    }
+
+    /**
+     * Writes the config to its file on the calling thread.<br>
+     * The content goes to a temporary file first which then replaces the real one, so a crash can't leave a half-written file behind.
+     *
+     * @see #saveIfDirty()
+     * @see #saveLater(Plugin)
+     */
     public void save() throws IOException {
-        Files.createDirectories(this.file.toPath().getParent());
+        this.dirty = false;
 
-        try (Writer writer = Files.newBufferedWriter(this.file.toPath(), StandardCharsets.UTF_8)) {
-            super.save(writer);
-        } catch (IOException e) {
-            throw new IOException("Unable to save '" + this.file.getPath() + "'", e);
+        try {
+            write(this, this.saveGeneration.incrementAndGet());
+        } catch (IOException ex) {
+            this.dirty = true;
+            throw ex;
+        }
+    }
+
+    /**
+     * Same as {@link #save()} but only if something was changed since the last load or save
+     *
+     * @return true if the file was written
+     * @since 3.24.0
+     */
+    public boolean saveIfDirty() throws IOException {
+        if (!this.dirty) {
+            return false;
+        }
+
+        save();
+        return true;
+    }
+
+    /**
+     * Schedules a save, calls made within the save delay (see {@link #setSaveDelay(long, TimeUnit)}) are coalesced into one.<br>
+     * When the delay is over, a snapshot of the values is taken on the main thread; serializing and writing it happens async.
+     * Nothing is written if the config isn't dirty by then.
+     *
+     * @since 3.24.0
+     */
+    public void saveLater(@NotNull Plugin plugin) {
+        if (this.saveScheduled) {
+            return;
+        }
+
+        this.saveScheduled = true;
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            this.saveScheduled = false;
+
+            if (!this.dirty) {
+                return;
+            }
+
+            this.dirty = false;
+
+            YamlConfiguration snapshot = createSnapshot();
+            long generation = this.saveGeneration.incrementAndGet();
+
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                try {
+                    write(snapshot, generation);
+                } catch (IOException ex) {
+                    this.dirty = true;
+                    this.logger.log(Level.SEVERE, "Failed to save config file: " + this.file.getPath(), ex);
+                }
+            });
+        }, this.saveDelayTicks);
+    }
+
+    /**
+     * Sets how long {@link #saveLater(Plugin)} waits for more changes before saving, defaults to one second
+     *
+     * @since 3.24.0
+     */
+    public void setSaveDelay(long time, @NotNull TimeUnit unit) {
+        this.saveDelayTicks = Math.max(1, unit.toMillis(time) / 50);
+    }
+
+    /**
+     * @return true if the values were changed since the last load or save
+     */
+    public boolean isDirty() {
+        return this.dirty;
+    }
+
+    private void write(@NotNull YamlConfiguration source, long generation) throws IOException {
+        synchronized (this.saveLock) {
+            if (generation <= this.writtenGeneration) {
+                return;
+            }
+
+            Path target = this.file.toPath();
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+            try {
+                Files.createDirectories(target.getParent());
+
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    source.save(writer);
+                }
+
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw new IOException("Unable to save '" + this.file.getPath() + "'", e);
+            }
+
+            this.writtenGeneration = generation;
+            this.lastSaveModified = this.file.lastModified();
+        }
+    }
+
+    /**
+     * @return true if the file on disk is still the one written by the last {@link #save()}
+     */
+    boolean isOwnWrite() {
+        return this.lastSaveModified != -1 && this.file.lastModified() == this.lastSaveModified;
+    }
+
+    /**
+     * @return the keys of every plain value (not section) that differs between this config and the staging copy
+     */
+    private Set<String> changedKeys(@NotNull Map<String, Object> current, @NotNull Map<String, Object> updated) {
+        Set<String> changed = new LinkedHashSet<>();
+
+        for (Map.Entry<String, Object> entry : updated.entrySet()) {
+            if (!(entry.getValue() instanceof Map) && !Objects.equals(entry.getValue(), current.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            if (!(entry.getValue() instanceof Map) && !updated.containsKey(entry.getKey())) {
+                changed.add(entry.getKey());
+            }
         }
+
+        return Collections.unmodifiableSet(changed);
+    }
+
+    @Override
+    public Object set(@NotNull String key, @Nullable Object value) {
+        this.dirty = true;
+        return super.set(key, value);
+    }
+
+    @Override
+    public Object unset(String key) {
+        this.dirty = true;
+        return super.unset(key);
+    }
+
+    @Override
+    public void reset() {
+        this.dirty = true;
+        super.reset();
     }
 
     @Override
     public void load(Reader reader) throws IOException {
         super.load(reader);
+        afterLoad();
+    }
+
+    /**
+     * Upgrades and completes freshly loaded values
+     */
+    private void afterLoad() throws IOException {
+        this.dirty = false;
 
         upgradeOldConfigVersion();
+        applyDefaults(this);
 
+        notifyLoadListeners();
+    }
+
+    private void applyDefaults(@NotNull TweetzyYamlConfig target) {
         for (ConfigEntry entry : this.configEntries.values()) {
-            if (entry.get() == null && entry.getDefaultValue() != null) {
-                entry.set(entry.getDefaultValue());
+            if (target.get(entry.getKey()) == null && entry.getDefaultValue() != null) {
+                target.set(entry.getKey(), entry.getDefaultValue());
+            }
+        }
+    }
+
+    private void notifyLoadListeners() {
+        for (Consumer<? super TweetzyYamlConfig> listener : this.loadListeners) {
+            try {
+                listener.accept(this);
+            } catch (RuntimeException ex) {
+                this.logger.log(Level.SEVERE, "A load listener of '" + this.file.getPath() + "' failed", ex);
+            }
+        }
+    }
+
+    private void notifyChangeListeners(@NotNull Set<String> changedKeys) {
+        for (BiConsumer<? super TweetzyYamlConfig, Set<String>> listener : this.changeListeners) {
+            try {
+                listener.accept(this, changedKeys);
+            } catch (RuntimeException ex) {
+                this.logger.log(Level.SEVERE, "A change listener of '" + this.file.getPath() + "' failed", ex);
             }
         }
     }
@@ -195,61 +578,127 @@ public class TweetzyYamlConfig extends YamlConfiguration {
      * @return false, if no config version is set or no upgrade is needed
      */
     protected boolean upgradeOldConfigVersion() throws IOException {
+        return upgradeOldConfigVersion(this);
+    }
+
+    /**
+     * Upgrades the values of the given config (this config or a staging copy of it) using this config's entries
+     */
+    private boolean upgradeOldConfigVersion(@NotNull TweetzyYamlConfig target) throws IOException {
         if (this.versionEntry == null) {
             return false;
         }
 
-        if (this.versionEntry.getInt() > this.targetVersion) {
+        int currentVersion = getVersion(target);
+
+        if (currentVersion > this.targetVersion) {
             throw new IllegalStateException("Cannot upgrade a config version that is higher than the target version");
         }
-        if (this.versionEntry.getInt() == this.targetVersion) {
+        if (currentVersion == this.targetVersion) {
             return false;
         }
 
         createBackupCopyFile();
 
-        while (this.versionEntry.getInt() < this.targetVersion) {
-            upgradeOldConfigVersionByOne();
-        }
+        if (target == this && overrides("upgradeOldConfigVersionByOne")) {
+            // a subclass customised the per-version step, keep calling it once per version
+            while (getVersion(this) < this.targetVersion) {
+                upgradeOldConfigVersionByOne();
+            }
 
-        cleanValuesMap(this.values);
+            cleanValuesMap(this.values);
+        } else {
+            migrate(target, currentVersion, this.targetVersion);
+        }
 
         return true;
     }
 
+    /**
+     * @return true if the runtime class (or a superclass below this one) overrides the no-args method
+     */
+    private boolean overrides(@NotNull String methodName) {
+        for (Class<?> type = getClass(); type != TweetzyYamlConfig.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(methodName);
+                return true;
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+
+        return false;
+    }
+
+    private int getVersion(@NotNull TweetzyYamlConfig target) {
+        if (target == this) {
+            return this.versionEntry.getInt();
+        }
+
+        Object version = target.get(this.versionEntry.getKey());
+
+        return version == null ? 0 : Double.valueOf(version.toString()).intValue();
+    }
+
+    /**
+     * Upgrades the values by a single version.<br>
+     * {@link #upgradeOldConfigVersion()} normally runs every pending version in one pass instead, but calls this once per
+     * version when a subclass overrides it.
+     */
     protected void upgradeOldConfigVersionByOne() {
-        int currentVersion = this.versionEntry.getInt();
+        int currentVersion = getVersion(this);
         int targetVersion = currentVersion + 1;
 
         if (targetVersion > this.targetVersion) {
             throw new IllegalStateException("Cannot upgrade a config version that is higher than the target version");
         }
 
-        for (ConfigEntry entry : this.configEntries.values()) {
-            if (entry.getUpgradeSteps() == null) {
-                continue;
+        migrate(this, currentVersion, targetVersion);
+    }
+
+    /**
+     * Runs every upgrade step from one version up to another in a single pass.<br>
+     * The steps are applied to a copy of the values which is swapped in at the end,
+     * so a failing step leaves the config as it was.
+     */
+    private void migrate(@NotNull TweetzyYamlConfig target, int fromVersion, int toVersion) {
+        YamlConfiguration working = target.createSnapshot();
+
+        for (List<MigrationStep> steps : compileMigrationPlan().subMap(fromVersion, toVersion).values()) {
+            for (MigrationStep step : steps) {
+                step.apply(working);
             }
+        }
+
+        working.set(this.versionEntry.getKey(), toVersion);
+
+        target.replaceValues(working);
+        target.cleanValuesMap(target.values);
+        target.dirty = true;
+    }
+
+    /**
+     * Collects the upgrade steps of every entry by the version they upgrade from, in the order the entries were created
+     */
+    private NavigableMap<Integer, List<MigrationStep>> compileMigrationPlan() {
+        NavigableMap<Integer, List<MigrationStep>> plan = new TreeMap<>();
 
-            Pair<@Nullable String, @Nullable Function<Object, Object>> upgradeStep = entry.getUpgradeSteps().get(currentVersion);
-            if (upgradeStep == null) {
+        for (ConfigEntry entry : this.configEntries.values()) {
+            if (entry.getUpgradeSteps() == null) {
                 continue;
             }
 
-            String oldEntryKey = upgradeStep.getFirst();
-            if (oldEntryKey == null) {
-                oldEntryKey = entry.getKey();
-            }
+            for (Map.Entry<Integer, Pair<@Nullable String, @Nullable Function<Object, Object>>> upgradeStep : entry.getUpgradeSteps().entrySet()) {
+                String oldEntryKey = upgradeStep.getValue().getFirst();
+                if (oldEntryKey == null) {
+                    oldEntryKey = entry.getKey();
+                }
 
-            Object newValue = get(oldEntryKey);
-            if (upgradeStep.getSecond() != null) {
-                newValue = upgradeStep.getSecond().apply(newValue);
+                plan.computeIfAbsent(upgradeStep.getKey(), version -> new ArrayList<>())
+                        .add(new MigrationStep(oldEntryKey, entry.getKey(), upgradeStep.getValue().getSecond()));
             }
-
-            set(oldEntryKey, null);
-            entry.set(newValue);
         }
 
-        this.versionEntry.set(targetVersion);
+        return plan;
     }
 
     protected void createBackupCopyFile() throws IOException {
@@ -271,4 +720,26 @@ public class TweetzyYamlConfig extends YamlConfiguration {
             throw new IOException(this.cannotCreateBackupCopyExceptionPrefix + this.file.getPath(), ex);
         }
     }
+
+    private static final class MigrationStep {
+        private final String oldKey;
+        private final String newKey;
+        private final @Nullable Function<Object, Object> valueConverter;
+
+        private MigrationStep(@NotNull String oldKey, @NotNull String newKey, @Nullable Function<Object, Object> valueConverter) {
+            this.oldKey = oldKey;
+            this.newKey = newKey;
+            this.valueConverter = valueConverter;
+        }
+
+        private void apply(@NotNull YamlConfiguration values) {
+            Object newValue = values.get(this.oldKey);
+            if (this.valueConverter != null) {
+                newValue = this.valueConverter.apply(newValue);
+            }
+
+            values.set(this.oldKey, null);
+            values.set(this.newKey, newValue);
+        }
+    }
 }
@@ -0,0 +1,45 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.config.yaml;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converts values of a type into something YAML can hold (strings, numbers, booleans, lists and maps) and back.
+ *
+ * @param <T> the converted type
+ * @see ValueConverters#register(Class, ValueConverter)
+ * @since 3.24.0
+ */
+public interface ValueConverter<T> {
+
+    /**
+     * @return the value as plain YAML data
+     */
+    @Nullable Object serialize(@NotNull T value);
+
+    /**
+     * @param serialized the plain YAML data, as read from the config
+     * @param type       the exact type that was requested, can be a subtype of {@code T}
+     *
+     * @return the converted value, or null if the data can't be converted
+     */
+    @Nullable T deserialize(@NotNull Object serialized, @NotNull Class<? extends T> type);
+}
@@ -0,0 +1,322 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.config.yaml;
+
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Registry of the {@link ValueConverter}s used by {@link YamlConfiguration#set(String, Object)} and {@link YamlConfiguration#getAs(String, Class)}.
+ * <p>
+ * Converters are looked up by the exact class first, then its superclasses and then its interfaces, the result is cached per class.
+ * Out of the box this covers floats, characters, enums, primitive and object arrays and every {@link ConfigurationSerializable}
+ * (e.g. Location and ItemStack, stored in the same format Bukkit's own configs use). Those are the exception in
+ * {@link YamlConfiguration#set(String, Object)}: they stay objects in memory and are only converted when the config is written.
+ *
+ * @since 3.24.0
+ */
+public final class ValueConverters {
+
+    private static final ValueConverter<?> NONE = converter(value -> value, (value, type) -> null);
+
+    private static final Map<Class<?>, ValueConverter<?>> CONVERTERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ValueConverter<?>> RESOLVED = new ConcurrentHashMap<>();
+
+    static {
+        register(Float.class, ValueConverters.<Float>converter(Float::doubleValue, (value, type) -> value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString())));
+        register(Character.class, ValueConverters.<Character>converter(Object::toString, (value, type) -> value.toString().isEmpty() ? null : value.toString().charAt(0)));
+        register(Enum.class, ValueConverters.<Enum>converter(Enum::name, ValueConverters::matchEnum));
+        register(ConfigurationSerializable.class, ValueConverters.<ConfigurationSerializable>converter(ValueConverters::serializeBukkit, (value, type) -> type.isInstance(value = deserializeBukkit(value)) ? type.cast(value) : null));
+
+        register(int[].class, ValueConverters.<int[]>converter(array -> {
+            List<Integer> list = new ArrayList<>(array.length);
+            for (int i : array) list.add(i);
+            return list;
+        }, (value, type) -> {
+            List<?> list = asList(value);
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = number(list.get(i)).intValue();
+            return array;
+        }));
+        register(long[].class, ValueConverters.<long[]>converter(array -> {
+            List<Long> list = new ArrayList<>(array.length);
+            for (long l : array) list.add(l);
+            return list;
+        }, (value, type) -> {
+            List<?> list = asList(value);
+            long[] array = new long[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = number(list.get(i)).longValue();
+            return array;
+        }));
+        register(short[].class, ValueConverters.<short[]>converter(array -> {
+            List<Integer> list = new ArrayList<>(array.length);
+            for (short s : array) list.add((int) s);
+            return list;
+        }, (value, type) -> {
+            List<?> list = asList(value);
+            short[] array = new short[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = number(list.get(i)).shortValue();
+            return array;
+        }));
+        register(byte[].class, ValueConverters.<byte[]>converter(array -> {
+            List<Integer> list = new ArrayList<>(array.length);
+            for (byte b : array) list.add((int) b);
+            return list;
+        }, (value, type) -> {
+            List<?> list = asList(value);
+            byte[] array = new byte[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = number(list.get(i)).byteValue();
+            return array;
+        }));
+        register(double[].class, ValueConverters.<double[]>converter(array -> {
+            List<Double> list = new ArrayList<>(array.length);
+            for (double d : array) list.add(d);
+            return list;
+        }, (value, type) -> {
+            List<?> list = asList(value);
+            double[] array = new double[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = number(list.get(i)).doubleValue();
+            return array;
+        }));
+        register(float[].class, ValueConverters.<float[]>converter(array -> {
+            List<Double> list = new ArrayList<>(array.length);
+            for (float f : array) list.add((double) f);
+            return list;
+        }, (value, type) -> {
+            List<?> list = asList(value);
+            float[] array = new float[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = number(list.get(i)).floatValue();
+            return array;
+        }));
+        register(boolean[].class, ValueConverters.<boolean[]>converter(array -> {
+            List<Boolean> list = new ArrayList<>(array.length);
+            for (boolean b : array) list.add(b);
+            return list;
+        }, (value, type) -> {
+            List<?> list = asList(value);
+            boolean[] array = new boolean[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = Boolean.parseBoolean(String.valueOf(list.get(i)));
+            return array;
+        }));
+        register(char[].class, ValueConverters.<char[]>converter(array -> {
+            List<String> list = new ArrayList<>(array.length);
+            for (char c : array) list.add(String.valueOf(c));
+            return list;
+        }, (value, type) -> {
+            List<?> list = asList(value);
+            char[] array = new char[list.size()];
+            for (int i = 0; i < array.length; i++) array[i] = String.valueOf(list.get(i)).charAt(0);
+            return array;
+        }));
+        register(Object[].class, ValueConverters.<Object[]>converter(Arrays::asList, ValueConverters::toObjectArray));
+    }
+
+    private ValueConverters() {
+    }
+
+    /**
+     * Registers (or replaces) the converter for the given type and its subtypes
+     */
+    public static <T> void register(@NotNull Class<T> type, @NotNull ValueConverter<? super T> converter) {
+        CONVERTERS.put(type, converter);
+        RESOLVED.clear();
+    }
+
+    /**
+     * @return the converter for the type, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> @Nullable ValueConverter<T> find(@NotNull Class<T> type) {
+        ValueConverter<?> converter = RESOLVED.computeIfAbsent(type, ValueConverters::resolve);
+
+        return converter == NONE ? null : (ValueConverter<T>) converter;
+    }
+
+    /**
+     * @return the value converted to plain YAML data, or the value itself if there is no converter for it
+     */
+    @SuppressWarnings("unchecked")
+    public static @Nullable Object serialize(@Nullable Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        ValueConverter<Object> converter = (ValueConverter<Object>) find(value.getClass());
+
+        return converter == null ? value : converter.serialize(value);
+    }
+
+    /**
+     * @return the value converted to the given type, the value itself if it already is of that type,
+     * or null if there is no converter for the type
+     */
+    public static <T> @Nullable T deserialize(@NotNull Object value, @NotNull Class<T> type) {
+        if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+
+        ValueConverter<T> converter = find(type);
+
+        return converter == null ? null : converter.deserialize(value, type);
+    }
+
+    private static ValueConverter<?> resolve(Class<?> type) {
+        if (type.isArray() && !CONVERTERS.containsKey(type)) {
+            return type.getComponentType().isPrimitive() ? NONE : CONVERTERS.getOrDefault(Object[].class, NONE);
+        }
+
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            ValueConverter<?> converter = CONVERTERS.get(current);
+            if (converter != null) return converter;
+        }
+
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> anInterface : current.getInterfaces()) {
+                ValueConverter<?> converter = CONVERTERS.get(anInterface);
+                if (converter != null) return converter;
+            }
+        }
+
+        return NONE;
+    }
+
+    private static Map<String, Object> serializeBukkit(ConfigurationSerializable value) {
+        Map<String, Object> serialized = new LinkedHashMap<>();
+        serialized.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(value.getClass()));
+
+        for (Map.Entry<String, Object> entry : value.serialize().entrySet()) {
+            serialized.put(entry.getKey(), serializeNested(entry.getValue()));
+        }
+
+        return serialized;
+    }
+
+    /**
+     * Nested values (e.g. the meta of an ItemStack) have to be plain data as well
+     */
+    private static Object serializeNested(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> serialized = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                serialized.put(entry.getKey(), serializeNested(entry.getValue()));
+            }
+            return serialized;
+        }
+
+        if (value instanceof List) {
+            List<Object> serialized = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                serialized.add(serializeNested(element));
+            }
+            return serialized;
+        }
+
+        return serialize(value);
+    }
+
+    /**
+     * Deserializes bottom up, the same way Bukkit's yaml constructor does
+     */
+    @SuppressWarnings("unchecked")
+    private static Object deserializeBukkit(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> deserialized = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                deserialized.put(String.valueOf(entry.getKey()), deserializeBukkit(entry.getValue()));
+            }
+
+            if (deserialized.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                return ConfigurationSerialization.deserializeObject(deserialized);
+            }
+
+            return deserialized;
+        }
+
+        if (value instanceof List) {
+            List<Object> deserialized = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                deserialized.add(deserializeBukkit(element));
+            }
+            return deserialized;
+        }
+
+        return value;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Enum matchEnum(Object value, Class<? extends Enum> type) {
+        Class<?> enumType = type.isEnum() ? type : type.getSuperclass();
+        if (!enumType.isEnum()) return null;
+
+        for (Object constant : enumType.getEnumConstants()) {
+            if (((Enum) constant).name().equalsIgnoreCase(value.toString())) return (Enum) constant;
+        }
+
+        return null;
+    }
+
+    private static Object[] toObjectArray(Object value, Class<? extends Object[]> type) {
+        List<?> list = asList(value);
+        Class<?> componentType = type.getComponentType();
+        Object[] array = (Object[]) Array.newInstance(componentType, list.size());
+
+        for (int i = 0; i < array.length; i++) {
+            Object element = list.get(i);
+
+            array[i] = element == null ? null : deserialize(element, componentType);
+        }
+
+        return array;
+    }
+
+    private static List<?> asList(Object value) {
+        if (value instanceof List) return (List<?>) value;
+        throw new IllegalArgumentException("Expected a list but got: " + value);
+    }
+
+    private static Number number(Object value) {
+        return value instanceof Number ? (Number) value : Double.valueOf(String.valueOf(value));
+    }
+
+    private static <T> ValueConverter<T> converter(Function<T, Object> serializer, BiFunction<Object, Class<? extends T>, T> deserializer) {
+        return new ValueConverter<T>() {
+            @Override
+            public @Nullable Object serialize(@NotNull T value) {
+                return serializer.apply(value);
+            }
+
+            @Override
+            public @Nullable T deserialize(@NotNull Object serialized, @NotNull Class<? extends T> type) {
+                return deserializer.apply(serialized, type);
+            }
+        };
+    }
+}
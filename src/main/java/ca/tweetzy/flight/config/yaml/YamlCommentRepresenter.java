@@ -18,6 +18,7 @@
 
 package ca.tweetzy.flight.config.yaml;
 
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.comments.CommentLine;
 import org.yaml.snakeyaml.comments.CommentType;
@@ -29,7 +30,12 @@ import org.yaml.snakeyaml.nodes.ScalarNode;
 import org.yaml.snakeyaml.representer.Representer;
 
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 /**
@@ -39,30 +45,61 @@ import java.util.function.Supplier;
 public class YamlCommentRepresenter extends Representer {
     private final Map<String, Supplier<String>> nodeComments;
 
+    /**
+     * Comment lines by key, only rebuilt when the supplied text changes.
+     * Suppliers are still asked on every dump, so comments computed at save time stay current.
+     */
+    private final Map<String, CachedComment> commentLines = new ConcurrentHashMap<>();
+
+    /**
+     * Keys of the sections that contain a commented node somewhere below them, null if it has to be rebuilt.
+     * Sections that aren't in here are not walked at all.
+     */
+    private volatile Set<String> commentedSections;
+
     public YamlCommentRepresenter(DumperOptions dumperOptions, Map<String, Supplier<String>> nodeComments) {
         super(dumperOptions);
         this.nodeComments = nodeComments;
+
+        // YamlConfiguration#set keeps these as objects, they only become plain data when written
+        this.multiRepresenters.put(ConfigurationSerializable.class, data -> representData(ValueConverters.serialize(data)));
+    }
+
+    /**
+     * Has to be called after {@link #nodeComments} was changed
+     */
+    public void invalidateComments() {
+        this.commentedSections = null;
+    }
+
+    /**
+     * Takes over the already built comment lines of another representer
+     */
+    void copyComments(YamlCommentRepresenter other) {
+        this.commentLines.putAll(other.commentLines);
     }
 
     @Override
     public Node represent(Object data) {
         Node rootNode = super.represent(data);
 
-        if (!(rootNode instanceof MappingNode)) {
+        if (!(rootNode instanceof MappingNode) || this.nodeComments.isEmpty()) {
             return rootNode;
         }
 
+        Set<String> sections = getCommentedSections();
+
         for (NodeTuple nodeTuple : ((MappingNode) rootNode).getValue()) {
             if (!(nodeTuple.getKeyNode() instanceof ScalarNode)) {
                 continue;
             }
 
-            applyComment((ScalarNode) nodeTuple.getKeyNode(), ((ScalarNode) nodeTuple.getKeyNode()).getValue());
+            String key = ((ScalarNode) nodeTuple.getKeyNode()).getValue();
 
-            if (nodeTuple.getValueNode() instanceof MappingNode) {
-                String key = ((ScalarNode) nodeTuple.getKeyNode()).getValue();
+            applyComment((ScalarNode) nodeTuple.getKeyNode(), key);
 
-                resolveSubNodes(((MappingNode) nodeTuple.getValueNode()), key);
+            if (nodeTuple.getValueNode() instanceof MappingNode && sections.contains(key)) {
+                resolveSubNodes(((MappingNode) nodeTuple.getValueNode()), key, sections);
             }
         }
 
@@ -70,6 +107,10 @@ public class YamlCommentRepresenter extends Representer {
     }
 
     protected void resolveSubNodes(MappingNode mappingNode, String key) {
+        resolveSubNodes(mappingNode, key, getCommentedSections());
+    }
+
+    private void resolveSubNodes(MappingNode mappingNode, String key, Set<String> sections) {
         for (NodeTuple nodeTuple : mappingNode.getValue()) {
             if (!(nodeTuple.getKeyNode() instanceof ScalarNode)) {
                 continue;
@@ -79,8 +120,8 @@ public class YamlCommentRepresenter extends Representer {
 
             applyComment((ScalarNode) nodeTuple.getKeyNode(), newKey);
 
-            if (nodeTuple.getValueNode() instanceof MappingNode) {
-                resolveSubNodes(((MappingNode) nodeTuple.getValueNode()), newKey);
+            if (nodeTuple.getValueNode() instanceof MappingNode && sections.contains(newKey)) {
+                resolveSubNodes(((MappingNode) nodeTuple.getValueNode()), newKey, sections);
             }
         }
     }
@@ -88,8 +129,49 @@ public class YamlCommentRepresenter extends Representer {
     protected void applyComment(ScalarNode scalarNode, String key) {
         Supplier<String> innerValue = this.nodeComments.get(key);
 
-        if (innerValue != null) {
-            scalarNode.setBlockComments(Collections.singletonList(new CommentLine(new CommentEvent(CommentType.BLOCK, " " + innerValue.get(), null, null))));
+        if (innerValue == null) {
+            return;
+        }
+
+        String comment = innerValue.get();
+        CachedComment cached = this.commentLines.get(key);
+
+        if (cached == null || !Objects.equals(cached.text, comment)) {
+            cached = new CachedComment(comment, Collections.singletonList(new CommentLine(new CommentEvent(CommentType.BLOCK, " " + comment, null, null))));
+            this.commentLines.put(key, cached);
+        }
+
+        scalarNode.setBlockComments(cached.lines);
+    }
+
+    private Set<String> getCommentedSections() {
+        Set<String> sections = this.commentedSections;
+
+        if (sections == null) {
+            sections = new HashSet<>();
+
+            for (String key : this.nodeComments.keySet()) {
+                int separator = key.indexOf('.');
+
+                while (separator != -1) {
+                    sections.add(key.substring(0, separator));
+                    separator = key.indexOf('.', separator + 1);
+                }
+            }
+
+            this.commentedSections = sections;
+        }
+
+        return sections;
+    }
+
+    private static final class CachedComment {
+        private final String text;
+        private final List<CommentLine> lines;
+
+        private CachedComment(String text, List<CommentLine> lines) {
+            this.text = text;
+            this.lines = lines;
         }
     }
 }
@@ -41,6 +41,13 @@ public class YamlConfigEntry implements WriteableConfigEntry {
 
     protected @Nullable Map<Integer, Pair<@Nullable String, @Nullable Function<@Nullable Object, @Nullable Object>>> upgradeSteps;
 
+    /**
+     * The last parsed number/boolean together with the raw value it was parsed from,
+     * reused for as long as the config holds that same value
+     */
+    private volatile @Nullable ParsedValue parsedNumber;
+    private volatile @Nullable ParsedValue parsedBoolean;
+
     public YamlConfigEntry(@NotNull YamlConfiguration config, @NotNull String key, @Nullable Object defaultValue) {
         this.config = config;
         this.key = key;
@@ -57,6 +64,58 @@ public class YamlConfigEntry implements WriteableConfigEntry {
         return this.config;
     }
 
+    @Override
+    public int getIntOr(int fallbackValue) {
+        Object value = get();
+
+        if (value == null) {
+            return fallbackValue;
+        }
+
+        return (int) parseNumber(value);
+    }
+
+    @Override
+    public double getDoubleOr(double fallbackValue) {
+        Object value = get();
+
+        if (value == null) {
+            return fallbackValue;
+        }
+
+        return parseNumber(value);
+    }
+
+    @Override
+    public boolean getBooleanOr(boolean fallbackValue) {
+        Object value = get();
+
+        if (value == null) {
+            return fallbackValue;
+        }
+
+        ParsedValue parsed = this.parsedBoolean;
+
+        if (parsed == null || parsed.raw != value) {
+            this.parsedBoolean = parsed = new ParsedValue(value, Boolean.parseBoolean(value.toString()) ? 1 : 0);
+        }
+
+        return parsed.value == 1;
+    }
+
+    /**
+     * Same parsing as {@link ConfigEntry#getDoubleOr(double)}, the int variant only truncates the result
+     */
+    private double parseNumber(@NotNull Object value) {
+        ParsedValue parsed = this.parsedNumber;
+
+        if (parsed == null || parsed.raw != value) {
+            this.parsedNumber = parsed = new ParsedValue(value, Double.parseDouble(value.toString()));
+        }
+
+        return parsed.value;
+    }
+
     @Override
     public @Nullable Object getDefaultValue() {
         return this.defaultValue;
@@ -103,4 +162,14 @@ public class YamlConfigEntry implements WriteableConfigEntry {
     public int hashCode() {
         return Objects.hash(this.config, this.key, this.defaultValue, this.upgradeSteps);
     }
+
+    private static final class ParsedValue {
+        private final Object raw;
+        private final double value;
+
+        private ParsedValue(Object raw, double value) {
+            this.raw = raw;
+            this.value = value;
+        }
+    }
 }
@@ -21,7 +21,7 @@ package ca.tweetzy.flight.config.yaml;
 import ca.tweetzy.flight.config.HeaderCommentable;
 import ca.tweetzy.flight.config.IConfiguration;
 import ca.tweetzy.flight.config.NodeCommentable;
-import org.apache.commons.lang.ArrayUtils;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -44,16 +44,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
-// TODO: Allow registering own custom value converter (e.g. Bukkit-Location to Map and back)
-//       + move the huge block from #set into such a converter and register it by default
-
 /**
  * The original author of this code is SpraxDev, the original is from SongodaCore,
  * the following code below, may not reflect the original version.
  */
 public class YamlConfiguration implements IConfiguration, HeaderCommentable, NodeCommentable {
+    /**
+     * Stands in for keys that are explicitly set to null, as the path index can't hold null values
+     */
+    private static final Object NULL_VALUE = new Object();
+
     protected final @NotNull Yaml yaml;
     protected final @NotNull DumperOptions yamlDumperOptions;
     protected final @NotNull YamlCommentRepresenter yamlCommentRepresenter;
@@ -62,6 +65,21 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
     protected final @NotNull Map<String, Supplier<String>> nodeComments;
     protected @Nullable Supplier<String> headerComment;
 
+    /**
+     * Every dotted path of {@link #values} (including the ones pointing at sections) mapped to its value,
+     * so lookups don't have to split the key and walk the nested maps.
+     * Built lazily and kept up to date by {@link #set(String, Object)} and {@link #unset(String)}, null if it has to be rebuilt.
+     */
+    private volatile @Nullable Map<String, Object> pathIndex;
+
+    /**
+     * Whether {@link #values} might contain null values or empty sections that {@link #save(Writer)} has to clean up first
+     */
+    private volatile boolean needsCleaning = false;
+
+    private @Nullable String cachedHeaderComment;
+    private @NotNull String cachedHeaderCommentLines = "";
+
     public YamlConfiguration() {
         this(new LinkedHashMap<>(), new LinkedHashMap<>());
     }
@@ -82,6 +100,10 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
             return false;
         }
 
+        if (isIndexable(key)) {
+            return getPathIndex().containsKey(key);
+        }
+
         String[] fullKeyPath = key.split("\\.");
 
         Map<String, ?> innerMap = getInnerMap(this.values, Arrays.copyOf(fullKeyPath, fullKeyPath.length - 1), false);
@@ -100,6 +122,12 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
             return null;
         }
 
+        if (isIndexable(key)) {
+            Object value = getPathIndex().get(key);
+
+            return value == NULL_VALUE ? null : value;
+        }
+
         try {
             return getInnerValueForKey(this.values, key);
         } catch (IllegalArgumentException ignore) {
@@ -125,6 +153,16 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
             return Collections.unmodifiableSet(this.values.keySet());
         }
 
+        if (isIndexable(key)) {
+            Object value = getPathIndex().get(key);
+
+            if (value instanceof Map) {
+                return Collections.unmodifiableSet(((Map<String, ?>) value).keySet());
+            }
+
+            return Collections.emptySet();
+        }
+
         Map<String, ?> innerMap = null;
 
         try {
@@ -140,55 +178,49 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
 
     }
 
+    /**
+     * Gets the value converted to the given type by its {@link ValueConverter}, e.g. an enum stored through {@link #set(String, Object)}
+     * or a Location that was loaded from the file (loaded values are plain YAML data, {@link #get(String)} returns a Map for those)
+     *
+     * @return the converted value, or null if there is no value or it can't be converted
+     * @since 3.24.0
+     */
+    public <T> @Nullable T getAs(String key, @NotNull Class<T> type) {
+        Object value = get(key);
+
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return ValueConverters.deserialize(value, type);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ignore) {
+        }
+
+        return null;
+    }
+
+    /**
+     * Sets the value, values that YAML can't hold as-is (e.g. enums or arrays) are converted by their {@link ValueConverter} first.<br>
+     * {@link ConfigurationSerializable}s (Location, ItemStack, ...) are kept as they are, so {@link #get(String)} keeps returning
+     * the same object until the config is reloaded, they are only converted when the config is written.
+     *
+     * @see ValueConverters#register(Class, ValueConverter)
+     */
     @Override
     public Object set(@NotNull String key, @Nullable Object value) {
-        if (value != null) {
-            if (value instanceof Float) {
-                value = ((Float) value).doubleValue();
-            } else if (value instanceof Character) {
-                value = ((Character) value).toString();
-            } else if (value.getClass().isEnum()) {
-                value = ((Enum<?>) value).name();
-            } else if (value.getClass().isArray()) {
-                if (value instanceof int[]) {
-                    value = Arrays.asList(ArrayUtils.toObject((int[]) value));
-                } else if (value instanceof long[]) {
-                    value = Arrays.asList(ArrayUtils.toObject((long[]) value));
-                } else if (value instanceof short[]) {
-                    List<Integer> newValue = new ArrayList<>(((short[]) value).length);
-                    for (Short s : (short[]) value) {
-                        newValue.add(s.intValue());
-                    }
-                    value = newValue;
-                } else if (value instanceof byte[]) {
-                    List<Integer> newValue = new ArrayList<>(((byte[]) value).length);
-                    for (Byte b : (byte[]) value) {
-                        newValue.add(b.intValue());
-                    }
-                    value = newValue;
-                } else if (value instanceof double[]) {
-                    value = Arrays.asList(ArrayUtils.toObject((double[]) value));
-                } else if (value instanceof float[]) {
-                    List<Double> newValue = new ArrayList<>(((float[]) value).length);
-                    for (float f : (float[]) value) {
-                        newValue.add(new Float(f).doubleValue());
-                    }
-                    value = newValue;
-                } else if (value instanceof boolean[]) {
-                    value = Arrays.asList(ArrayUtils.toObject((boolean[]) value));
-                } else if (value instanceof char[]) {
-                    List<String> newValue = new ArrayList<>(((char[]) value).length);
-                    for (char c : (char[]) value) {
-                        newValue.add(String.valueOf(c));
-                    }
-                    value = newValue;
-                } else {
-                    value = Arrays.asList((Object[]) value);
-                }
-            }
+        if (!(value instanceof ConfigurationSerializable)) {
+            value = ValueConverters.serialize(value);
         }
 
-        return setInnerValueForKey(this.values, key, value);
+        Object oldValue = setInnerValueForKey(this.values, key, value);
+        updatePathIndex(key, value, oldValue);
+
+        if (value == null || value instanceof Map) {
+            this.needsCleaning = true;
+        }
+
+        return oldValue;
     }
 
     @Override
@@ -198,7 +230,13 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
         Map<String, ?> innerMap = getInnerMap(this.values, Arrays.copyOf(fullKeyPath, fullKeyPath.length - 1), false);
 
         if (innerMap != null) {
-            return innerMap.remove(fullKeyPath[fullKeyPath.length - 1]);
+            Object oldValue = innerMap.remove(fullKeyPath[fullKeyPath.length - 1]);
+            removeFromPathIndex(key, oldValue);
+
+            // could have left an empty section behind
+            this.needsCleaning = true;
+
+            return oldValue;
         }
 
         return null;
@@ -207,6 +245,8 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
     @Override
     public void reset() {
         this.values.clear();
+        this.pathIndex = null;
+        this.needsCleaning = false;
     }
 
     @Override
@@ -220,13 +260,81 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
             throw new IllegalStateException("The YAML file does not have the expected tree structure: " + yamlData.getClass().getName());
         }
 
+        loadValues((Map<?, ?>) yamlData);
+    }
+
+    /**
+     * Replaces all values with already parsed YAML data
+     */
+    protected void loadValues(@NotNull Map<?, ?> yamlData) {
         synchronized (this.values) {
             this.values.clear();
 
-            for (Map.Entry<?, ?> yamlEntry : ((Map<?, ?>) yamlData).entrySet()) {
+            for (Map.Entry<?, ?> yamlEntry : yamlData.entrySet()) {
                 this.values.put(yamlEntry.getKey().toString(), yamlEntry.getValue());
             }
+
+            this.pathIndex = buildPathIndex();
+            this.needsCleaning = true;
+        }
+    }
+
+    /**
+     * Replaces all values with the ones of the given configuration, taking over its path index.<br>
+     * This lets a configuration be parsed somewhere else (e.g. off the main thread) and swapped in at once.
+     *
+     * @param source a configuration that is no longer used by anything else
+     */
+    protected void replaceValues(@NotNull YamlConfiguration source) {
+        synchronized (this.values) {
+            this.values.clear();
+            this.values.putAll(source.values);
+
+            // the index only references the nested maps, which now belong to us
+            this.pathIndex = source.pathIndex;
+            this.needsCleaning = source.needsCleaning;
+        }
+    }
+
+    /**
+     * Creates a detached copy of this configuration (values, comments and header) with its own {@link Yaml} instance,
+     * so it can be saved on another thread while this one keeps being modified.<br>
+     * Nested maps and lists are copied, the values themselves are shared.
+     */
+    public @NotNull YamlConfiguration createSnapshot() {
+        YamlConfiguration snapshot;
+
+        synchronized (this.values) {
+            snapshot = new YamlConfiguration((Map<String, Object>) deepCopy(this.values), new LinkedHashMap<>(this.nodeComments));
+        }
+
+        snapshot.headerComment = this.headerComment;
+        snapshot.needsCleaning = this.needsCleaning;
+        snapshot.yamlCommentRepresenter.copyComments(this.yamlCommentRepresenter);
+
+        return snapshot;
+    }
+
+    private static Object deepCopy(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+
+            return copy;
+        }
+
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                copy.add(deepCopy(element));
+            }
+
+            return copy;
         }
+
+        return value;
     }
 
     @Override
@@ -234,7 +342,10 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
         String headerCommentLines = generateHeaderCommentLines();
         writer.write(headerCommentLines);
 
-        cleanValuesMap(this.values);
+        if (this.needsCleaning) {
+            cleanValuesMap(this.values);
+            this.needsCleaning = false;
+        }
 
         if (this.values.size() > 0) {
             if (headerCommentLines.length() > 0) {
@@ -257,9 +368,14 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
 
     @Override
     public @NotNull String generateHeaderCommentLines() {
+        String headerCommentString = this.headerComment == null ? null : this.headerComment.get();
+
+        if (Objects.equals(headerCommentString, this.cachedHeaderComment)) {
+            return this.cachedHeaderCommentLines;
+        }
+
         StringBuilder sb = new StringBuilder();
 
-        String headerCommentString = this.headerComment == null ? null : this.headerComment.get();
         if (headerCommentString != null) {
             for (String commentLine : headerCommentString.split("\r?\n")) {
                 sb.append("# ")
@@ -268,12 +384,16 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
             }
         }
 
-        return sb.toString();
+        this.cachedHeaderComment = headerCommentString;
+        this.cachedHeaderCommentLines = sb.toString();
+
+        return this.cachedHeaderCommentLines;
     }
 
     @Override
     public void setNodeComment(@NotNull String key, @Nullable Supplier<String> comment) {
         this.nodeComments.put(key, comment);
+        this.yamlCommentRepresenter.invalidateComments();
     }
 
     @Override
@@ -296,6 +416,139 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
                 '}';
     }
 
+    /**
+     * Drops the path index, it is rebuilt on the next lookup.<br>
+     * Only needed if a map returned by {@link #get(String)} was modified directly.
+     */
+    public void invalidatePathIndex() {
+        this.pathIndex = null;
+    }
+
+    protected @NotNull Map<String, Object> getPathIndex() {
+        Map<String, Object> index = this.pathIndex;
+
+        if (index == null) {
+            synchronized (this.values) {
+                index = this.pathIndex;
+
+                if (index == null) {
+                    this.pathIndex = index = buildPathIndex();
+                }
+            }
+        }
+
+        return index;
+    }
+
+    private Map<String, Object> buildPathIndex() {
+        Map<String, Object> index = new ConcurrentHashMap<>(Math.max(16, this.values.size() * 4));
+        indexSection(index, "", this.values);
+
+        return index;
+    }
+
+    private void updatePathIndex(@NotNull String key, @Nullable Object value, @Nullable Object oldValue) {
+        Map<String, Object> index = this.pathIndex;
+        if (index == null) {
+            return;
+        }
+
+        if (!isIndexable(key)) {
+            this.pathIndex = null;
+            return;
+        }
+
+        if (oldValue instanceof Map) {
+            removeSection(index, key + ".", (Map<?, ?>) oldValue);
+        }
+
+        // parent sections might have just been created or replaced a plain value
+        Map<?, ?> currentMap = this.values;
+        int segmentStart = 0;
+        int separator;
+        while ((separator = key.indexOf('.', segmentStart)) != -1) {
+            Object section = currentMap.get(key.substring(segmentStart, separator));
+            index.put(key.substring(0, separator), section);
+
+            currentMap = (Map<?, ?>) section;
+            segmentStart = separator + 1;
+        }
+
+        index.put(key, value == null ? NULL_VALUE : value);
+
+        if (value instanceof Map) {
+            indexSection(index, key + ".", (Map<?, ?>) value);
+        }
+    }
+
+    private void removeFromPathIndex(@NotNull String key, @Nullable Object oldValue) {
+        Map<String, Object> index = this.pathIndex;
+        if (index == null) {
+            return;
+        }
+
+        if (!isIndexable(key)) {
+            this.pathIndex = null;
+            return;
+        }
+
+        index.remove(key);
+
+        if (oldValue instanceof Map) {
+            removeSection(index, key + ".", (Map<?, ?>) oldValue);
+        }
+    }
+
+    private static void indexSection(Map<String, Object> index, String prefix, Map<?, ?> section) {
+        for (Map.Entry<?, ?> entry : section.entrySet()) {
+            if (!isIndexableSegment(entry.getKey())) {
+                continue;
+            }
+
+            String path = prefix + entry.getKey();
+            Object value = entry.getValue();
+
+            index.put(path, value == null ? NULL_VALUE : value);
+
+            if (value instanceof Map) {
+                indexSection(index, path + ".", (Map<?, ?>) value);
+            }
+        }
+    }
+
+    private static void removeSection(Map<String, Object> index, String prefix, Map<?, ?> section) {
+        for (Map.Entry<?, ?> entry : section.entrySet()) {
+            if (!isIndexableSegment(entry.getKey())) {
+                continue;
+            }
+
+            String path = prefix + entry.getKey();
+            index.remove(path);
+
+            if (entry.getValue() instanceof Map) {
+                removeSection(index, path + ".", (Map<?, ?>) entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Keys with empty segments (e.g. <code>a..b</code> or <code>a.</code>) are resolved by {@link String#split(String)} rules,
+     * those are left to the map walk instead of the path index
+     */
+    private static boolean isIndexable(String key) {
+        return !key.isEmpty() &&
+                key.charAt(0) != '.' &&
+                key.charAt(key.length() - 1) != '.' &&
+                !key.contains("..");
+    }
+
+    /**
+     * Only String keys without a dot can be reached through a dotted path
+     */
+    private static boolean isIndexableSegment(Object key) {
+        return key instanceof String && !((String) key).isEmpty() && ((String) key).indexOf('.') == -1;
+    }
+
     protected static DumperOptions createDefaultYamlDumperOptions() {
         DumperOptions dumperOptions = new DumperOptions();
         dumperOptions.setProcessComments(true);
@@ -389,6 +642,7 @@ public class YamlConfiguration implements IConfiguration, HeaderCommentable, Nod
 
             if (value == null || (value instanceof Map && ((Map<?, ?>) value).isEmpty())) {
                 map.remove(key);
+                this.pathIndex = null;
             }
         }
     }
@@ -15,6 +15,7 @@ import ca.tweetzy.flight.gui.methods.Openable;
 import ca.tweetzy.flight.gui.methods.Pagable;
 import ca.tweetzy.flight.utils.Common;
 import ca.tweetzy.flight.utils.QuickItem;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
@@ -28,6 +29,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +51,7 @@ public class Gui {
     protected boolean allowClose = true;
     protected boolean useLockedCells = false;
     protected boolean allowShiftClick = false;
+    protected boolean reuseInventory = false;
     protected final Map<Integer, Boolean> unlockedCells = new HashMap<>();
     protected final Map<Integer, ItemStack> cellItems = new HashMap<>();
     protected final Map<Integer, Map<ClickType, Clickable>> conditionalButtons = new HashMap<>();
@@ -71,6 +74,9 @@ public class Gui {
     protected CompSound defaultSound = CompSound.UI_BUTTON_CLICK;
     protected CompSound navigateSound = CompSound.ENTITY_BAT_TAKEOFF;
 
+    // opens that have been requested through the manager but not yet shown
+    final AtomicInteger pendingOpens = new AtomicInteger();
+
     public Gui() {
         this.rows = 3;
     }
@@ -160,6 +166,20 @@ public class Gui {
         return allowShiftClick;
     }
 
+    /**
+     * If enabled, the inventory of this GUI is handed back to the manager once nobody is viewing it,
+     * and the next GUI of the same class, size and title reuses it instead of creating a new one.
+     * Only slots that differ are rewritten when a pooled inventory is picked up.
+     */
+    public Gui setReuseInventory(boolean reuseInventory) {
+        this.reuseInventory = reuseInventory;
+        return this;
+    }
+
+    public boolean isReuseInventory() {
+        return reuseInventory;
+    }
+
     /**
      * Close the GUI without calling onClose() and without opening any parent
      * GUIs
@@ -167,6 +187,7 @@ public class Gui {
     public void exit() {
         allowClose = true;
         open = false;
+        if (inventory == null) return;
         inventory.getViewers().stream()
                 .filter(e -> e instanceof Player)
                 .map(e -> (Player) e)
@@ -179,6 +200,7 @@ public class Gui {
      */
     public void close() {
         allowClose = true;
+        if (inventory == null) return;
         inventory.getViewers().stream()
                 .filter(e -> e instanceof Player)
                 .map(e -> (Player) e)
@@ -255,6 +277,7 @@ public class Gui {
     public Gui setTitle(String title) {
         if (title == null) title = "";
         if (!title.equals(this.title)) {
+            final String oldInventoryTitle = reuseInventory && inventory != null ? getInventoryTitle() : null;
             this.title = title;
             if (inventory != null) {
                 // update active inventory
@@ -262,10 +285,17 @@ public class Gui {
                 boolean isAllowClose = allowClose;
                 exit();
                 Inventory oldInv = inventory;
-                createInventory();
-                inventory.setContents(oldInv.getContents());
+                if (acquirePooledInventory()) {
+                    writeContents(oldInv.getContents(), true);
+                } else {
+                    createInventory();
+                    inventory.setContents(oldInv.getContents());
+                }
                 toUpdate.forEach(player -> player.openInventory(inventory));
                 allowClose = isAllowClose;
+
+                if (oldInventoryTitle != null && guiManager != null)
+                    guiManager.inventoryPool.release(this, oldInv, getBukkitInventoryType(), oldInventoryTitle);
             }
         }
         return this;
@@ -645,31 +675,100 @@ public class Gui {
 
     @NotNull
     protected Inventory generateInventory(@NotNull GuiManager manager) {
+        final long start = GuiMetrics.startTime();
+        final long allocation = GuiMetrics.startAllocation();
+
         this.guiManager = manager;
         final int cells = rows * inventoryType.columns;
 
-        createInventory();
+        final boolean reused = acquirePooledInventory();
+        if (!reused)
+            createInventory();
+
         for (int i = 0; i < cells; ++i) {
             final ItemStack item = cellItems.get(i);
+            final ItemStack display = item != null ? item : (this.unlockedCells.getOrDefault(i, false) ? AIR : this.blankItem);
+
+            // pooled inventories still hold their previous contents, only touch what changed
+            if (reused && isSameItem(this.inventory.getItem(i), display))
+                continue;
+
 //            inventory.setItem(i, item != null ? item : (getDefaultItem()));
-            this.inventory.setItem(i, item != null ? item : (this.unlockedCells.getOrDefault(i, false) ? AIR : this.blankItem));
+            this.inventory.setItem(i, display);
         }
+
+        GuiMetrics.record(this, GuiMetrics.Stage.GENERATE, start, allocation);
         return inventory;
     }
 
     protected void createInventory() {
-        final InventoryType t = inventoryType == null ? InventoryType.CHEST : inventoryType.type;
+        final InventoryType t = getBukkitInventoryType();
 
         switch (t) {
             case DISPENSER:
             case HOPPER:
-                inventory = new GuiHolder(guiManager, this).newInventory(t, title == null ? "" : Common.colorize(trimTitle(title)));
+                inventory = new GuiHolder(guiManager, this).newInventory(t, getInventoryTitle());
                 break;
             default:
-                inventory = new GuiHolder(guiManager, this).newInventory(rows * 9, title == null ? "" : Common.colorize(trimTitle(title)));
+                inventory = new GuiHolder(guiManager, this).newInventory(rows * 9, getInventoryTitle());
         }
     }
 
+    /**
+     * Tries to pick up a pooled inventory from the manager
+     *
+     * @return true if {@link #inventory} now holds a reused inventory
+     */
+    private boolean acquirePooledInventory() {
+        if (!reuseInventory || guiManager == null) return false;
+
+        final InventoryType t = getBukkitInventoryType();
+        final Inventory pooled = guiManager.inventoryPool.acquire(this, t, t == InventoryType.CHEST ? rows * 9 : t.getDefaultSize(), getInventoryTitle());
+
+        if (pooled == null) return false;
+
+        inventory = pooled;
+        return true;
+    }
+
+    /**
+     * Hands the inventory back to the manager's pool if this GUI is closed and nothing is about to reopen it
+     */
+    void releaseInventory() {
+        final Inventory inv = inventory;
+        if (!reuseInventory || guiManager == null || inv == null || pendingOpens.get() > 0 || isOpen()) return;
+
+        inventory = null;
+        guiManager.inventoryPool.release(this, inv, getBukkitInventoryType(), getInventoryTitle());
+    }
+
+    private void writeContents(ItemStack[] contents, boolean diff) {
+        final int size = Math.min(contents.length, inventory.getSize());
+        for (int i = 0; i < size; ++i) {
+            if (diff && isSameItem(inventory.getItem(i), contents[i]))
+                continue;
+            inventory.setItem(i, contents[i]);
+        }
+    }
+
+    private static boolean isSameItem(@Nullable ItemStack current, @Nullable ItemStack desired) {
+        final boolean currentEmpty = current == null || current.getType() == Material.AIR;
+        final boolean desiredEmpty = desired == null || desired.getType() == Material.AIR;
+
+        if (currentEmpty || desiredEmpty)
+            return currentEmpty == desiredEmpty;
+
+        return current.equals(desired);
+    }
+
+    private InventoryType getBukkitInventoryType() {
+        return inventoryType == null ? InventoryType.CHEST : inventoryType.type;
+    }
+
+    private String getInventoryTitle() {
+        return title == null ? "" : Common.colorize(trimTitle(title));
+    }
+
     @Nullable
     public Gui getParent() {
         return parent;
@@ -679,12 +778,17 @@ public class Gui {
         if (inventory == null)
             return;
 
+        final long start = GuiMetrics.startTime();
+        final long allocation = GuiMetrics.startAllocation();
+
         final int cells = rows * inventoryType.columns;
         for (int i = 0; i < cells; ++i) {
             final ItemStack item = cellItems.get(i);
 //            inventory.setItem(i, item != null ? item : (getDefaultItem()));
             this.inventory.setItem(i, item != null ? item : (this.unlockedCells.getOrDefault(i, false) ? AIR : this.blankItem));
         }
+
+        GuiMetrics.record(this, GuiMetrics.Stage.UPDATE, start, allocation);
     }
 
     protected static String trimTitle(String title) {
@@ -28,7 +28,7 @@ import org.bukkit.inventory.InventoryHolder;
  */
 class GuiHolder implements InventoryHolder {
 
-    final Gui gui;
+    volatile Gui gui;
     final GuiManager manager;
 
     public GuiHolder(GuiManager manager, Gui gui) {
@@ -45,6 +45,13 @@ class GuiHolder implements InventoryHolder {
         return gui;
     }
 
+    /**
+     * Moves this holder (and its inventory) over to another gui, used when reusing pooled inventories
+     */
+    void bind(Gui gui) {
+        this.gui = gui;
+    }
+
     public Inventory newInventory(int size, String title) {
         return Bukkit.createInventory(this, size, title);
     }
@@ -0,0 +1,112 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.gui;
+
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Internal pool of closed gui inventories, keyed by (type, size, title, gui class).
+ * <p>
+ * Inventories are returned with their old contents still in place, so a gui that is
+ * reopened with mostly the same items only has to write the slots that changed.
+ */
+final class GuiInventoryPool {
+
+    private static final int MAX_PER_KEY = 4;
+    private static final int MAX_KEYS = 32;
+
+    private final Map<Key, Deque<Inventory>> pool = new LinkedHashMap<Key, Deque<Inventory>>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Deque<Inventory>> eldest) {
+            return size() > MAX_KEYS;
+        }
+    };
+
+    /**
+     * Takes an unused inventory out of the pool and binds it to the given gui
+     *
+     * @return the pooled inventory, or null if none is available
+     */
+    synchronized Inventory acquire(Gui gui, InventoryType type, int size, String title) {
+        final Deque<Inventory> inventories = this.pool.get(new Key(gui.getClass(), type, size, title));
+        if (inventories == null) return null;
+
+        Inventory inventory;
+        while ((inventory = inventories.pollFirst()) != null) {
+            // someone could have force opened it in the meantime, skip those
+            if (inventory.getViewers().isEmpty() && inventory.getHolder() instanceof GuiHolder) {
+                ((GuiHolder) inventory.getHolder()).bind(gui);
+                return inventory;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns an inventory to the pool, it must no longer be viewed by anyone
+     */
+    synchronized void release(Gui gui, Inventory inventory, InventoryType type, String title) {
+        if (!inventory.getViewers().isEmpty()) return;
+
+        final Deque<Inventory> inventories = this.pool.computeIfAbsent(new Key(gui.getClass(), type, inventory.getSize(), title), key -> new ArrayDeque<>(MAX_PER_KEY));
+        if (inventories.size() < MAX_PER_KEY && !inventories.contains(inventory))
+            inventories.addFirst(inventory);
+    }
+
+    synchronized void clear() {
+        this.pool.clear();
+    }
+
+    private static final class Key {
+
+        private final Class<?> guiClass;
+        private final InventoryType type;
+        private final int size;
+        private final String title;
+
+        private Key(Class<?> guiClass, InventoryType type, int size, String title) {
+            this.guiClass = guiClass;
+            this.type = type;
+            this.size = size;
+            this.title = title;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            final Key key = (Key) o;
+            return this.size == key.size && this.guiClass == key.guiClass && this.type == key.type && this.title.equals(key.title);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.guiClass, this.type, this.size, this.title);
+        }
+    }
+}
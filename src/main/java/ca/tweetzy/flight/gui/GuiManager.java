@@ -30,6 +30,7 @@ public class GuiManager {
     final UUID uuid = UUID.randomUUID();
     final GuiListener listener = new GuiListener(this);
     final Map<Player, Gui> openInventories = new HashMap<>();
+    final GuiInventoryPool inventoryPool = new GuiInventoryPool();
     private final Object lock = new Object();
     private boolean initialized = false;
     private boolean shutdown = false;
@@ -70,6 +71,9 @@ public class GuiManager {
             init();
         }
 
+        final long openStart = GuiMetrics.startTime();
+        gui.pendingOpens.incrementAndGet();
+
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
             Gui openInv = openInventories.get(player);
             if (openInv != null) {
@@ -80,9 +84,11 @@ public class GuiManager {
             Bukkit.getScheduler().runTask(plugin, () -> {
                 player.openInventory(inv);
                 gui.onOpen(this, player);
+                gui.pendingOpens.decrementAndGet();
                 synchronized (lock) {
                     openInventories.put(player, gui);
                 }
+                GuiMetrics.record(gui, GuiMetrics.Stage.OPEN, openStart, -1);
             });
         });
     }
@@ -96,6 +102,7 @@ public class GuiManager {
                     .forEach(e -> e.getKey().closeInventory());
             openInventories.clear();
         }
+        inventoryPool.clear();
     }
 
     protected static class GuiListener implements Listener {
@@ -139,7 +146,7 @@ public class GuiManager {
 
                 if (event.getClick() == ClickType.SHIFT_LEFT || event.getClick() == ClickType.SHIFT_RIGHT && gui.isAllowShiftClick()) {
                     event.setCancelled(!gui.isAllowShiftClick());
-                    if (gui.onClick(manager, player, openInv, event)) {
+                    if (handleClick(gui, player, openInv, event)) {
                         if (event.getRawSlot() == gui.nextPageIndex || event.getRawSlot() == gui.prevPageIndex)
                             if (gui.getNavigateSound() != null) player.playSound(player.getLocation(), gui.getNavigateSound().parseSound(), 1F, 1F);
                             else {
@@ -167,7 +174,7 @@ public class GuiManager {
                     // allow event if this is not a GUI element
                     event.setCancelled(gui.unlockedCells.entrySet().stream().noneMatch(e -> event.getSlot() == e.getKey() && e.getValue()));
                     // process button press
-                    if (gui.onClick(manager, player, openInv, event)) {
+                    if (handleClick(gui, player, openInv, event)) {
                         if (event.getRawSlot() == gui.nextPageIndex || event.getRawSlot() == gui.prevPageIndex)
                             if (gui.getNavigateSound() != null) player.playSound(player.getLocation(), gui.getNavigateSound().parseSound(), 1F, 1F);
                             else {
@@ -186,6 +193,17 @@ public class GuiManager {
             }
         }
 
+        private boolean handleClick(Gui gui, Player player, Inventory openInv, InventoryClickEvent event) {
+            final long start = GuiMetrics.startTime();
+            final long allocation = GuiMetrics.startAllocation();
+
+            try {
+                return gui.onClick(manager, player, openInv, event);
+            } finally {
+                GuiMetrics.record(gui, GuiMetrics.Stage.CLICK, start, allocation);
+            }
+        }
+
         @EventHandler(priority = EventPriority.LOW)
         void onCloseGUI(InventoryCloseEvent event) {
             Inventory openInv = event.getInventory();
@@ -205,6 +223,7 @@ public class GuiManager {
                     Bukkit.getScheduler().runTaskLater(manager.plugin, () -> {
                         gui.onClose(manager, player);
                         player.updateInventory();
+                        gui.releaseInventory();
                     }, 1);
                 }
                 manager.openInventories.remove(player);
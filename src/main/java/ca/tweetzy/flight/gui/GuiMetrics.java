@@ -0,0 +1,221 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.gui;
+
+import ca.tweetzy.flight.utils.TimingHistogram;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-gui-class timings for opening, generating, updating, drawing and clicking.
+ * <p>
+ * Disabled by default, when disabled the hooks inside {@link Gui} and {@link GuiManager}
+ * cost a single volatile read.
+ */
+public final class GuiMetrics {
+
+    public enum Stage {
+        OPEN, GENERATE, UPDATE, DRAW, CLICK
+    }
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    // com.sun.management isn't shipped by every JVM, so the allocation counter is looked up reflectively
+    private static final Method ALLOCATED_BYTES = findAllocatedBytes();
+    private static final Map<Class<?>, EnumMap<Stage, StageMetrics>> METRICS = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled = false;
+
+    private GuiMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(final boolean enabled) {
+        GuiMetrics.enabled = enabled;
+    }
+
+    /**
+     * @return the current {@link System#nanoTime()} if metrics are enabled, otherwise 0
+     */
+    public static long startTime() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if unsupported / disabled
+     */
+    public static long startAllocation() {
+        if (!enabled) return -1;
+        return allocatedBytes();
+    }
+
+    /**
+     * Records a stage for the given gui
+     *
+     * @param gui             The gui the stage ran for
+     * @param stage           The stage that was measured
+     * @param startTime       The value returned by {@link #startTime()}
+     * @param startAllocation The value returned by {@link #startAllocation()}, or -1 if the stage crossed threads
+     */
+    public static void record(@NotNull final Gui gui, @NotNull final Stage stage, final long startTime, final long startAllocation) {
+        if (!enabled || startTime == 0) return;
+
+        final long elapsed = System.nanoTime() - startTime;
+        final EnumMap<Stage, StageMetrics> stages = METRICS.computeIfAbsent(gui.getClass(), clazz -> new EnumMap<>(Stage.class));
+        final StageMetrics metrics;
+
+        // generation runs async, so the stage map can be touched by more than one thread
+        synchronized (stages) {
+            metrics = stages.computeIfAbsent(stage, s -> new StageMetrics());
+        }
+
+        metrics.timings.record(elapsed);
+
+        if (startAllocation >= 0) {
+            final long allocated = allocatedBytes();
+            if (allocated >= 0) {
+                metrics.allocatedBytes.add(allocated - startAllocation);
+                metrics.allocationSamples.increment();
+            }
+        }
+    }
+
+    /**
+     * @return an immutable view of every gui class that has recorded metrics
+     */
+    public static Map<Class<?>, Map<Stage, Snapshot>> snapshot() {
+        final Map<Class<?>, Map<Stage, Snapshot>> snapshot = new LinkedHashMap<>();
+
+        METRICS.forEach((clazz, stages) -> {
+            final Map<Stage, Snapshot> stageSnapshots = new EnumMap<>(Stage.class);
+            synchronized (stages) {
+                stages.forEach((stage, metrics) -> stageSnapshots.put(stage, metrics.snapshot()));
+            }
+            snapshot.put(clazz, Collections.unmodifiableMap(stageSnapshots));
+        });
+
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Formats the current metrics into chat friendly lines, slowest draw first
+     *
+     * @return The formatted lines
+     */
+    public static List<String> describe() {
+        final List<String> lines = new ArrayList<>();
+        final List<Map.Entry<Class<?>, Map<Stage, Snapshot>>> entries = new ArrayList<>(snapshot().entrySet());
+
+        entries.sort((a, b) -> Double.compare(slowest(b.getValue()), slowest(a.getValue())));
+
+        for (Map.Entry<Class<?>, Map<Stage, Snapshot>> entry : entries) {
+            lines.add("&e" + entry.getKey().getSimpleName());
+            entry.getValue().forEach((stage, snap) -> lines.add(String.format(
+                    "&8- &7%s&8: &f%d &7calls, &f%.2fms &7avg, &f%.2fms &7p95, &f%.2fms &7max, &f%d &7bytes/call",
+                    stage.name().toLowerCase(), snap.getCount(), snap.getMeanMillis(), snap.getP95Millis(), snap.getMaxMillis(), snap.getAverageAllocatedBytes()
+            )));
+        }
+
+        return lines;
+    }
+
+    public static void reset() {
+        METRICS.clear();
+    }
+
+    private static double slowest(final Map<Stage, Snapshot> stages) {
+        double slowest = 0;
+        for (Snapshot snapshot : stages.values())
+            slowest = Math.max(slowest, snapshot.getMeanMillis());
+        return slowest;
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if the JVM can't tell
+     */
+    private static long allocatedBytes() {
+        if (ALLOCATED_BYTES == null) return -1;
+
+        try {
+            return (long) ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return -1;
+        }
+    }
+
+    private static Method findAllocatedBytes() {
+        try {
+            final Class<?> extended = Class.forName("com.sun.management.ThreadMXBean");
+            if (!extended.isInstance(THREAD_BEAN)) return null;
+
+            if (!(boolean) extended.getMethod("isThreadAllocatedMemorySupported").invoke(THREAD_BEAN)) return null;
+            extended.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(THREAD_BEAN, true);
+
+            return extended.getMethod("getThreadAllocatedBytes", long.class);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    private static final class StageMetrics {
+
+        final TimingHistogram timings = new TimingHistogram();
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder allocationSamples = new LongAdder();
+
+        Snapshot snapshot() {
+            final long samples = this.allocationSamples.sum();
+            return new Snapshot(
+                    this.timings.getCount(),
+                    this.timings.getMeanMillis(),
+                    this.timings.getPercentileMillis(50),
+                    this.timings.getPercentileMillis(95),
+                    this.timings.getMaxMillis(),
+                    samples == 0 ? -1 : this.allocatedBytes.sum() / samples
+            );
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Snapshot {
+
+        private final long count;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double maxMillis;
+        private final long averageAllocatedBytes;
+    }
+}
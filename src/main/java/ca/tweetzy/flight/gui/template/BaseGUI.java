@@ -20,6 +20,7 @@ package ca.tweetzy.flight.gui.template;
 
 import ca.tweetzy.flight.comp.enums.CompMaterial;
 import ca.tweetzy.flight.gui.Gui;
+import ca.tweetzy.flight.gui.GuiMetrics;
 import ca.tweetzy.flight.utils.Common;
 import ca.tweetzy.flight.utils.QuickItem;
 import lombok.NonNull;
@@ -60,6 +61,16 @@ public abstract class BaseGUI extends Gui {
      */
     protected abstract void draw();
 
+    /**
+     * Calls {@link #draw()}, recording how long it took when {@link GuiMetrics} are enabled.
+     */
+    protected void redraw() {
+        final long start = GuiMetrics.startTime();
+        final long allocation = GuiMetrics.startAllocation();
+
+        draw();
+        GuiMetrics.record(this, GuiMetrics.Stage.DRAW, start, allocation);
+    }
 
     /**
      * It adds a back button to the bottom left of the GUI
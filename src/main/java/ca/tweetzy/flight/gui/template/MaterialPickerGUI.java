@@ -61,7 +61,7 @@ public final class MaterialPickerGUI extends BaseGUI {
         this.inputSubtitle = inputSubtitle;
         this.selected = selected;
         this.parent = parent;
-        draw();
+        redraw();
     }
 
     public MaterialPickerGUI(final String titleOverride, final String inputTitle, final String inputSubtitle, final String searchQuery, @NonNull final BiConsumer<GuiClickEvent, ItemStack> selected) {
@@ -100,7 +100,7 @@ public final class MaterialPickerGUI extends BaseGUI {
 
         setPrevPage(5, 3, this.getPreviousButton());
         setNextPage(5, 5, this.getNextButton());
-        setOnPage(e -> draw());
+        setOnPage(e -> redraw());
 
         for (int i = 0; i < this.rows * 9; i++) {
             if (this.fillSlots().contains(i) && this.fillSlots().indexOf(i) < itemsToFill.size()) {
@@ -60,7 +60,7 @@ public abstract class PagedGUI<T> extends BaseGUI {
 
             setPrevPage(getPreviousButtonSlot(), getPreviousButton());
             setNextPage(getNextButtonSlot(), getNextButton());
-            setOnPage(e -> draw());
+            setOnPage(e -> redraw());
 
             for (int i = 0; i < this.rows * 9; i++) {
                 if (this.fillSlots().contains(i) && this.fillSlots().indexOf(i) < itemsToFill.size()) {
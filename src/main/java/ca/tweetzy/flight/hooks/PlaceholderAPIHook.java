@@ -20,23 +20,21 @@ package ca.tweetzy.flight.hooks;
 
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
-import me.clip.placeholderapi.PlaceholderAPI;
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @UtilityClass
 public final class PlaceholderAPIHook {
 
+    /**
+     * @see PlaceholderResolver#resolve(Player, String)
+     */
     public String tryReplace(@NonNull final Player player, @NonNull String message) {
-        if (Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI"))
-            message = PlaceholderAPI.setPlaceholders(player, message);
-        return message;
+        return PlaceholderResolver.resolve(player, message);
     }
 
     public List<String> tryReplace(@NonNull final Player player, @NonNull final List<String> messages) {
-        return messages.stream().map(line -> tryReplace(player, line)).collect(Collectors.toList());
+        return PlaceholderResolver.resolve(player, messages);
     }
 }
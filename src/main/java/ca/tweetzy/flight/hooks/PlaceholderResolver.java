@@ -0,0 +1,209 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.hooks;
+
+import ca.tweetzy.flight.FlightPlugin;
+import ca.tweetzy.flight.collection.LruCache;
+import lombok.NonNull;
+import me.clip.placeholderapi.PlaceholderAPI;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves PlaceholderAPI placeholders with as few expansion calls as possible.
+ * <p>
+ * Each distinct text is scanned once for the placeholders it contains, text without any is returned as is.
+ * Every (player, placeholder) pair is resolved at most once per server tick, so the same placeholder
+ * repeated over a lore, several guis or many lines only hits its expansion once.
+ */
+public final class PlaceholderResolver {
+
+    private static final String PLUGIN_NAME = "PlaceholderAPI";
+
+    // text -> where its placeholders are, NONE if it has none
+    private static final LruCache<String, int[]> PARSED = new LruCache<>(2048);
+    private static final int[] NONE = new int[0];
+    private static final int MAX_CACHED_LENGTH = 1024;
+
+    // player -> placeholder -> value, cleared every tick
+    private static final Map<UUID, Map<String, String>> VALUES = new ConcurrentHashMap<>();
+
+    private static volatile Boolean available;
+    private static volatile boolean ticking = false;
+
+    private PlaceholderResolver() {
+    }
+
+    /**
+     * @return true if PlaceholderAPI is enabled, checked at most once per tick
+     */
+    public static boolean isAvailable() {
+        Boolean available = PlaceholderResolver.available;
+
+        if (available == null) {
+            available = Bukkit.getPluginManager().isPluginEnabled(PLUGIN_NAME);
+            if (startTicking()) PlaceholderResolver.available = available;
+        }
+
+        return available;
+    }
+
+    /**
+     * Replaces the placeholders in the text for the player
+     *
+     * @param player The player to resolve placeholders for
+     * @param text   The text
+     *
+     * @return The text with its placeholders resolved
+     */
+    public static String resolve(@NonNull final Player player, @NonNull final String text) {
+        final int[] positions = parse(text);
+        if (positions.length == 0 || !isAvailable()) return text;
+
+        final boolean cacheValues = ticking;
+        final Map<String, String> values = cacheValues ? VALUES.computeIfAbsent(player.getUniqueId(), uuid -> new ConcurrentHashMap<>()) : null;
+        final StringBuilder builder = new StringBuilder(text.length() + 16);
+        int cursor = 0;
+
+        for (int i = 0; i < positions.length; i += 2) {
+            final String placeholder = text.substring(positions[i], positions[i + 1]);
+            String value = cacheValues ? values.get(placeholder) : null;
+
+            if (value == null) {
+                value = PlaceholderAPI.setPlaceholders(player, placeholder);
+                if (cacheValues && value != null) values.put(placeholder, value);
+            }
+
+            builder.append(text, cursor, positions[i]).append(value);
+            cursor = positions[i + 1];
+        }
+
+        return builder.append(text, cursor, text.length()).toString();
+    }
+
+    public static List<String> resolve(@NonNull final Player player, @NonNull final List<String> lines) {
+        final List<String> resolved = new ArrayList<>(lines.size());
+        for (String line : lines)
+            resolved.add(resolve(player, line));
+
+        return resolved;
+    }
+
+    /**
+     * @return true if the text contains anything that looks like a placeholder
+     */
+    public static boolean hasPlaceholders(@NonNull final String text) {
+        return parse(text).length != 0;
+    }
+
+    /**
+     * Forgets every resolved value, e.g. after changing something placeholders depend on within the same tick
+     */
+    public static void invalidate() {
+        VALUES.clear();
+        available = null;
+    }
+
+    /**
+     * @return start, end pairs of every {@code %placeholder%} in the text
+     */
+    private static int[] parse(final String text) {
+        if (text.indexOf('%') == -1) return NONE;
+        if (text.length() > MAX_CACHED_LENGTH) return scan(text);
+
+        return PARSED.computeIfAbsent(text, PlaceholderResolver::scan);
+    }
+
+    /**
+     * Splits the text exactly like PlaceholderAPI's replacer does: a placeholder runs from a % to the next %,
+     * unless a space shows up before the first underscore, in which case scanning resumes after that space.
+     */
+    private static int[] scan(final String text) {
+        final List<Integer> positions = new ArrayList<>();
+        final int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != '%' || i + 1 >= length) continue;
+
+            final int start = i;
+            boolean identified = false;
+            boolean closed = false;
+
+            while (++i < length) {
+                final char c = text.charAt(i);
+
+                if (c == ' ' && !identified) break;
+                if (c == '%') {
+                    closed = true;
+                    break;
+                }
+                if (c == '_') identified = true;
+            }
+
+            if (closed) {
+                positions.add(start);
+                positions.add(i + 1);
+            }
+        }
+
+        if (positions.isEmpty()) return NONE;
+
+        final int[] result = new int[positions.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = positions.get(i);
+
+        return result;
+    }
+
+    /**
+     * Starts the task that clears the cached values every tick
+     *
+     * @return false if it couldn't be started (plugin not enabled), values are not cached then
+     */
+    private static boolean startTicking() {
+        if (ticking) return true;
+
+        synchronized (PlaceholderResolver.class) {
+            if (ticking) return true;
+
+            final FlightPlugin plugin;
+            try {
+                plugin = FlightPlugin.getInstance();
+            } catch (RuntimeException ex) {
+                return false;
+            }
+
+            if (plugin == null || !plugin.isEnabled()) return false;
+
+            Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+                VALUES.clear();
+                available = null;
+            }, 1L, 1L);
+
+            ticking = true;
+            return true;
+        }
+    }
+}
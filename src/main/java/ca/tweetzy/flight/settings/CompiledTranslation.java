@@ -0,0 +1,91 @@
+package ca.tweetzy.flight.settings;
+
+import ca.tweetzy.flight.hooks.PlaceholderAPIHook;
+import ca.tweetzy.flight.utils.Common;
+import ca.tweetzy.flight.utils.MessageTemplate;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A translation entry of one language, looked up and parsed once.
+ * <p>
+ * Lines without variables are colorized up front, the rest keep their parsed template
+ * so a render is only the variable pass, placeholders and a (cached) colorize.
+ */
+final class CompiledTranslation {
+
+    private final Line[] lines;
+    private final boolean list;
+
+    private CompiledTranslation(Line[] lines, boolean list) {
+        this.lines = lines;
+        this.list = list;
+    }
+
+    static CompiledTranslation compile(Object value) {
+        if (value instanceof List) {
+            final List<?> values = (List<?>) value;
+            final Line[] lines = new Line[values.size()];
+
+            for (int i = 0; i < lines.length; i++)
+                lines[i] = new Line(String.valueOf(values.get(i)));
+
+            return new CompiledTranslation(lines, true);
+        }
+
+        return new CompiledTranslation(value == null ? new Line[0] : new Line[]{new Line(String.valueOf(value))}, false);
+    }
+
+    String string(Player player, Object... variables) {
+        if (this.lines.length == 0) return "";
+        if (!this.list) return this.lines[0].render(player, variables);
+
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < this.lines.length; i++) {
+            if (i != 0) builder.append('\n');
+            builder.append(this.lines[i].render(player, variables));
+        }
+
+        return builder.toString();
+    }
+
+    List<String> list(Player player, Object... variables) {
+        if (this.lines.length == 0) return Collections.singletonList("");
+
+        final List<String> rendered = new ArrayList<>(this.lines.length);
+        for (Line line : this.lines)
+            rendered.add(line.render(player, variables));
+
+        return rendered;
+    }
+
+    private static final class Line {
+
+        private final MessageTemplate template;
+
+        // the finished line if it has no variables, and whether placeholderapi could still change it
+        private final String colorized;
+        private final boolean placeholders;
+
+        private Line(String raw) {
+            this.template = MessageTemplate.compile(raw);
+            this.colorized = this.template.hasPlaceholders() ? null : Common.colorize(raw);
+            this.placeholders = raw.indexOf('%') != -1;
+        }
+
+        private String render(Player player, Object... variables) {
+            if (this.colorized != null && (player == null || !this.placeholders))
+                return this.colorized;
+
+            String content = this.template.render(variables);
+
+            if (player != null)
+                content = PlaceholderAPIHook.tryReplace(player, content);
+
+            return Common.colorize(content);
+        }
+    }
+}
@@ -1,20 +1,31 @@
 package ca.tweetzy.flight.settings;
 
 import ca.tweetzy.flight.FlightPlugin;
-import ca.tweetzy.flight.hooks.PlaceholderAPIHook;
+import ca.tweetzy.flight.comp.enums.ServerVersion;
+import ca.tweetzy.flight.config.tweetzy.ConfigWatcher;
+import ca.tweetzy.flight.config.tweetzy.TweetzyYamlConfig;
 import ca.tweetzy.flight.utils.Common;
-import ca.tweetzy.flight.utils.Replacer;
+import ca.tweetzy.flight.utils.colors.ColorFormatter;
 import lombok.NonNull;
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class FlightTranslator {
 
@@ -23,6 +34,25 @@ public abstract class FlightTranslator {
     private static final Map<String, TranslationFile> translationFiles = new HashMap<>();
     private static final Map<String, Object> translations = new HashMap<>();
 
+    // every entry made through create, by ordinal; entries keep their slot across setup() calls
+    private static final Map<String, Integer> entryOrdinals = new ConcurrentHashMap<>();
+    private static final List<TranslationEntry> registeredEntries = new ArrayList<>();
+
+    // languages by index, and per language a table of compiled entries indexed by ordinal
+    private static volatile String[] languages = new String[0];
+    private static volatile Map<String, Integer> languageIndexes = Collections.emptyMap();
+    private static volatile CompiledTranslation[][] compiledTables = new CompiledTranslation[0][];
+
+    // language -> entry key, for entries without an ordinal
+    private static final Map<String, Map<String, CompiledTranslation>> compiledTranslations = new ConcurrentHashMap<>();
+
+    private static volatile boolean perPlayerLocale = false;
+
+    // Player#getLocale and PlayerLocaleChangeEvent were added in 1.12
+    private static final boolean CLIENT_LOCALE = ServerVersion.isServerVersionAtLeast(ServerVersion.V1_12);
+    private static final Map<UUID, Integer> playerLanguages = new ConcurrentHashMap<>();
+    private static final Map<UUID, String> preferredLanguages = new ConcurrentHashMap<>();
+
     public FlightTranslator(@NotNull String lang) {
         mainLanguage = lang;
     }
@@ -31,7 +61,16 @@ public abstract class FlightTranslator {
         if (!translations.containsKey(key.toLowerCase())) {
             translations.put(key.toLowerCase(), contents);
         }
-        return new TranslationEntry(key, contents);
+
+        synchronized (registeredEntries) {
+            final Integer existing = entryOrdinals.get(key.toLowerCase());
+            if (existing != null) return new TranslationEntry(key, contents, existing);
+
+            final TranslationEntry entry = new TranslationEntry(key, contents, registeredEntries.size());
+            registeredEntries.add(entry);
+            entryOrdinals.put(key.toLowerCase(), entry.ordinal);
+            return entry;
+        }
     }
 
     private static TranslationFile getTranslationFile(@NonNull final String language) {
@@ -47,61 +86,271 @@ public abstract class FlightTranslator {
     }
 
     public static String string(Player player, @NonNull String language, @NotNull TranslationEntry entry, Object... variables) {
-        final TranslationFile translations = getTranslationFile(language);
+        return compiled(languageIndex(language), entry).string(player, variables);
+    }
 
-        String content = (String) translations.getOr(entry.key, entry.string());
-        if (content == null) return "";
+    /**
+     * Translates the entry into the player's language if per-player locales are enabled, otherwise the main language
+     *
+     * @see #enablePerPlayerLocale(JavaPlugin)
+     */
+    public static String string(Player player, @NotNull TranslationEntry entry, Object... variables) {
+        return compiled(languageIndex(player), entry).string(player, variables);
+    }
 
-        content = Replacer.replaceVariables(content, variables);
+    public static String string(@NotNull TranslationEntry entry, Object... variables) {
+        return string(null, mainLanguage, entry, variables);
+    }
 
-        if (player != null)
-            content = PlaceholderAPIHook.tryReplace(player, content);
+    /**
+     * Same as {@link #string(Player, String, TranslationEntry, Object...)} but as chat components, cached per resulting text.
+     * Variables are already filled into the legacy text, so this goes through {@link ColorFormatter#toComponents(String)}.
+     * The returned array is a copy and may be modified.
+     */
+    public static BaseComponent[] component(Player player, @NonNull String language, @NotNull TranslationEntry entry, Object... variables) {
+        return ColorFormatter.toComponents(string(player, language, entry, variables));
+    }
 
-        // do some placeholder shit
-        return Common.colorize(content);
+    public static BaseComponent[] component(Player player, @NotNull TranslationEntry entry, Object... variables) {
+        return ColorFormatter.toComponents(string(player, entry, variables));
     }
 
-    public static String string(Player player, @NotNull TranslationEntry entry, Object... variables) {
-        return string(player, mainLanguage, entry, variables);
+    public static BaseComponent[] component(@NotNull TranslationEntry entry, Object... variables) {
+        return component(null, mainLanguage, entry, variables);
     }
 
-    public static String string(@NotNull TranslationEntry entry, Object... variables) {
-        return string(null, mainLanguage, entry, variables);
+    /**
+     * Sends the translated message to the sender, placeholders are applied for players.
+     * Goes out as components if {@link Common#setComponentOutput(boolean)} is enabled.
+     */
+    public static void send(@NonNull CommandSender sender, @NotNull TranslationEntry entry, Object... variables) {
+        Common.send(sender, string(sender instanceof Player ? (Player) sender : null, entry, variables));
     }
 
     public static List<String> list(Player player, @NonNull String language, @NotNull TranslationEntry entry, Object... variables) {
-        final TranslationFile translations = getTranslationFile(language);
+        return compiled(languageIndex(language), entry).list(player, variables);
+    }
+
+    /**
+     * @see #string(Player, TranslationEntry, Object...)
+     */
+    public static List<String> list(Player player, @NotNull TranslationEntry entry, Object... variables) {
+        return compiled(languageIndex(player), entry).list(player, variables);
+    }
+
+    public static List<String> list(@NotNull TranslationEntry entry, Object... variables) {
+        return list(null, mainLanguage, entry, variables);
+    }
+
+    /**
+     * Makes {@link #string(Player, TranslationEntry, Object...)} and friends use each player's own language,
+     * picked from their preferred language (see {@link #setPreferredLanguage(UUID, String)}) or their client locale.
+     * Below 1.12 the client locale isn't available, so players without a preferred language see the main language.
+     */
+    public static void enablePerPlayerLocale(@NonNull final JavaPlugin plugin) {
+        if (perPlayerLocale) return;
+
+        perPlayerLocale = true;
+        Bukkit.getPluginManager().registerEvents(new PlayerLocaleListener(), plugin);
+        if (CLIENT_LOCALE)
+            Bukkit.getPluginManager().registerEvents(new PlayerLocaleListener.ClientLocale(), plugin);
+    }
+
+    /**
+     * Sets the language a player should see, overriding their client locale
+     */
+    public static void setPreferredLanguage(@NonNull final UUID player, @NonNull final String language) {
+        preferredLanguages.put(player, language);
+        playerLanguages.remove(player);
+    }
 
-        List<String> content = new ArrayList<>();
+    public static void clearPreferredLanguage(@NonNull final UUID player) {
+        preferredLanguages.remove(player);
+        playerLanguages.remove(player);
+    }
+
+    /**
+     * @return the language the player sees translations in
+     */
+    public static String getLanguage(@NonNull final Player player) {
+        final int index = languageIndex(player);
+        final String[] languages = FlightTranslator.languages;
+
+        return index < 0 ? mainLanguage : languages[index];
+    }
+
+    /**
+     * Re-resolves the player's language with the given client locale
+     */
+    static void updateLocale(@NonNull final Player player, @NonNull final String locale) {
+        playerLanguages.put(player.getUniqueId(), resolveLanguage(player.getUniqueId(), locale));
+    }
+
+    static void forget(@NonNull final UUID player) {
+        playerLanguages.remove(player);
+    }
+
+    private static int languageIndex(final Player player) {
+        if (!perPlayerLocale || player == null) return languageIndex(mainLanguage);
+        return playerLanguages.computeIfAbsent(player.getUniqueId(), uuid -> resolveLanguage(uuid, CLIENT_LOCALE ? player.getLocale() : null));
+    }
 
-        if (entry.contents.length == 1) {
-            final Object obj = translations.getOr(entry.key, entry.string());
-            if (obj instanceof String)
-                content.add((String) obj);
+    /**
+     * @return the index of the language, the main language if it isn't registered, -1 if nothing is registered
+     */
+    private static int languageIndex(final String language) {
+        final Map<String, Integer> indexes = languageIndexes;
 
-            if (obj instanceof List)
-                content.addAll((List<String>) obj);
-        } else {
-            content = (List<String>) translations.getOr(entry.key, entry.list());
+        Integer index = language == null ? null : indexes.get(language);
+        if (index == null) index = mainLanguage == null ? null : indexes.get(mainLanguage);
+
+        return index == null ? -1 : index;
+    }
+
+    private static int resolveLanguage(final UUID player, final String locale) {
+        final String preferred = preferredLanguages.get(player);
+        if (preferred != null && languageIndexes.containsKey(preferred))
+            return languageIndexes.get(preferred);
+
+        if (locale != null) {
+            final String[] languages = FlightTranslator.languages;
+            final String normalized = locale.toLowerCase();
+
+            for (int i = 0; i < languages.length; i++)
+                if (languages[i].equalsIgnoreCase(normalized)) return i;
+
+            // same language, different region (en_gb -> en_us)
+            final int separator = normalized.indexOf('_');
+            final String prefix = separator == -1 ? normalized : normalized.substring(0, separator + 1);
+
+            for (int i = 0; i < languages.length; i++)
+                if (languages[i].toLowerCase().startsWith(prefix)) return i;
         }
 
-        if (content == null) return Collections.singletonList("");
+        return languageIndex(mainLanguage);
+    }
+
+    /**
+     * @return the compiled entry for the language, compiled on first use if it wasn't warmed up by {@link #setup()}
+     */
+    private static CompiledTranslation compiled(final int languageIndex, @NotNull final TranslationEntry entry) {
+        final String[] languages = FlightTranslator.languages;
+        final CompiledTranslation[][] tables = compiledTables;
+
+        if (languageIndex < 0 || languageIndex >= languages.length || languageIndex >= tables.length)
+            return CompiledTranslation.compile(defaultValue(entry));
 
-        content = Replacer.replaceVariables(content, variables);
+        final TranslationFile file = translationFiles.get(languages[languageIndex]);
+        if (file == null)
+            return CompiledTranslation.compile(defaultValue(entry));
 
-        if (player != null)
-            content = PlaceholderAPIHook.tryReplace(player, content);
+        final CompiledTranslation[] table = tables[languageIndex];
 
-        // do some placeholder shit
-        return Common.colorize(content);
+        if (entry.ordinal >= 0 && entry.ordinal < table.length) {
+            CompiledTranslation compiled = table[entry.ordinal];
+            if (compiled == null)
+                table[entry.ordinal] = compiled = CompiledTranslation.compile(file.getOr(entry.key, defaultValue(entry)));
+
+            return compiled;
+        }
+
+        return compiledTranslations
+                .computeIfAbsent(file.getLanguage(), lang -> new ConcurrentHashMap<>())
+                .computeIfAbsent(entry.key, key -> CompiledTranslation.compile(file.getOr(key, defaultValue(entry))));
     }
 
-    public static List<String> list(Player player, @NotNull TranslationEntry entry, Object... variables) {
-        return list(player, mainLanguage, entry, variables);
+    private static Object defaultValue(final TranslationEntry entry) {
+        return entry.contents.length > 1 ? entry.list() : entry.string();
     }
 
-    public static List<String> list(@NotNull TranslationEntry entry, Object... variables) {
-        return list(null, mainLanguage, entry, variables);
+    /**
+     * Flattens every registered entry of every language into tables indexed by ordinal, so lookups are an array index
+     */
+    private static void compileTranslations() {
+        final List<TranslationEntry> entries;
+        synchronized (registeredEntries) {
+            entries = new ArrayList<>(registeredEntries);
+        }
+
+        final String[] languages = translationFiles.keySet().toArray(new String[0]);
+        final Map<String, Integer> indexes = new HashMap<>();
+        final CompiledTranslation[][] tables = new CompiledTranslation[languages.length][];
+
+        for (int i = 0; i < languages.length; i++) {
+            final TranslationFile file = translationFiles.get(languages[i]);
+            final CompiledTranslation[] table = new CompiledTranslation[entries.size()];
+
+            for (TranslationEntry entry : entries)
+                table[entry.ordinal] = CompiledTranslation.compile(file.getOr(entry.key, defaultValue(entry)));
+
+            indexes.put(languages[i], i);
+            tables[i] = table;
+        }
+
+        compiledTranslations.clear();
+        FlightTranslator.compiledTables = tables;
+        FlightTranslator.languageIndexes = indexes;
+        FlightTranslator.languages = languages;
+
+        // indexes could have shifted
+        playerLanguages.clear();
+    }
+
+    /**
+     * Drops every compiled entry, call this if a translation file was changed without going through {@link #setup()}
+     */
+    public static void invalidateCompiled() {
+        compileTranslations();
+    }
+
+    /**
+     * Reloads every registered language file off the main thread, see {@link TweetzyYamlConfig#reloadAsync(Plugin)}.<br>
+     * Only the entries whose text changed are recompiled once a file is swapped in.
+     * Files that fail to load keep their current values, the returned future then completes exceptionally.
+     *
+     * @since 3.24.0
+     */
+    public static CompletableFuture<Void> reloadAsync(@NonNull final Plugin plugin) {
+        final List<CompletableFuture<?>> reloads = new ArrayList<>();
+        for (TranslationFile translationFile : translationFiles.values())
+            reloads.add(translationFile.reloadAsync(plugin));
+
+        return CompletableFuture.allOf(reloads.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Hot reloads the language files whenever they are edited on disk
+     *
+     * @since 3.24.0
+     */
+    public static void watch(@NonNull final ConfigWatcher watcher) throws IOException {
+        for (TranslationFile translationFile : translationFiles.values())
+            watcher.watch(translationFile);
+    }
+
+    /**
+     * Recompiles only the entries of a language file that changed during a reload
+     */
+    private static void recompile(final TweetzyYamlConfig config, final Set<String> changedKeys) {
+        final TranslationFile file = (TranslationFile) config;
+        final Integer languageIndex = languageIndexes.get(file.getLanguage());
+        final CompiledTranslation[][] tables = compiledTables;
+        final CompiledTranslation[] table = languageIndex == null || languageIndex >= tables.length ? null : tables[languageIndex];
+        final Map<String, CompiledTranslation> unordered = compiledTranslations.get(file.getLanguage());
+
+        for (String key : changedKeys) {
+            if (unordered != null) unordered.remove(key);
+
+            final Integer ordinal = entryOrdinals.get(key.toLowerCase());
+            if (ordinal == null || table == null || ordinal >= table.length) continue;
+
+            final TranslationEntry entry;
+            synchronized (registeredEntries) {
+                entry = registeredEntries.get(ordinal);
+            }
+
+            table[ordinal] = CompiledTranslation.compile(file.getOr(entry.key, defaultValue(entry)));
+        }
     }
 
     protected abstract void registerLanguages();
@@ -126,7 +375,10 @@ public abstract class FlightTranslator {
             });
 
             translationFile.init();
+            translationFile.addChangeListener(FlightTranslator::recompile);
         }
+
+        compileTranslations();
     }
 
     public void setup(JavaPlugin plugin) {
@@ -146,6 +398,9 @@ public abstract class FlightTranslator {
             });
 
             translationFile.init();
+            translationFile.addChangeListener(FlightTranslator::recompile);
         }
+
+        compileTranslations();
     }
 }
@@ -0,0 +1,30 @@
+package ca.tweetzy.flight.settings;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Keeps the per-player language table of {@link FlightTranslator} in sync with client locales
+ */
+final class PlayerLocaleListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(final PlayerQuitEvent event) {
+        FlightTranslator.forget(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * PlayerLocaleChangeEvent only exists on 1.12+, kept apart so older servers never load it
+     */
+    static final class ClientLocale implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onLocaleChange(final PlayerLocaleChangeEvent event) {
+            // fired before the player's locale is updated, so use the one from the event
+            FlightTranslator.updateLocale(event.getPlayer(), event.getLocale());
+        }
+    }
+}
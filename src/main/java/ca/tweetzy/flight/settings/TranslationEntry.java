@@ -1,18 +1,31 @@
 package ca.tweetzy.flight.settings;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 import java.util.Arrays;
 import java.util.List;
 
-@AllArgsConstructor
 @Getter
 public final class TranslationEntry {
 
     final String key;
     final String[] contents;
 
+    /**
+     * Slot of this entry in the per-language tables of {@link FlightTranslator}, -1 if it wasn't made through {@code create}
+     */
+    final int ordinal;
+
+    public TranslationEntry(String key, String[] contents) {
+        this(key, contents, -1);
+    }
+
+    TranslationEntry(String key, String[] contents, int ordinal) {
+        this.key = key;
+        this.contents = contents;
+        this.ordinal = ordinal;
+    }
+
     public String string() {
         return contents[0];
     }
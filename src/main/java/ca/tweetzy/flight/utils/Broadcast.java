@@ -0,0 +1,165 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.utils;
+
+import ca.tweetzy.flight.FlightPlugin;
+import ca.tweetzy.flight.hooks.PlaceholderResolver;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message sent to many players at once, e.g.
+ * <pre>{@code
+ * Broadcast.of("&aThe event starts in 5 minutes!").permission("event.notify").send();
+ * }</pre>
+ * Lines are colorized, prefixed and centered once for everyone. Only lines that actually contain
+ * PlaceholderAPI placeholders are rendered per player, and only if {@link #placeholders(boolean)} is on.
+ */
+public final class Broadcast {
+
+    private final String[] lines;
+    private String permission = null;
+    private boolean prefix = true;
+    private boolean placeholders = false;
+    private int playersPerTick = 0;
+
+    private Broadcast(String[] lines) {
+        this.lines = lines;
+    }
+
+    public static Broadcast of(@NonNull final String... lines) {
+        return new Broadcast(lines);
+    }
+
+    public static Broadcast of(@NonNull final List<String> lines) {
+        return new Broadcast(lines.toArray(new String[0]));
+    }
+
+    /**
+     * Only players with this permission receive the message, null for everyone
+     */
+    public Broadcast permission(final String permission) {
+        this.permission = permission;
+        return this;
+    }
+
+    public Broadcast prefix(final boolean prefix) {
+        this.prefix = prefix;
+        return this;
+    }
+
+    /**
+     * Resolves PlaceholderAPI placeholders for every recipient
+     */
+    public Broadcast placeholders(final boolean placeholders) {
+        this.placeholders = placeholders;
+        return this;
+    }
+
+    /**
+     * Spreads sending over several ticks, at most this many players per tick. 0 sends to everyone right away
+     */
+    public Broadcast spread(final int playersPerTick) {
+        this.playersPerTick = Math.max(0, playersPerTick);
+        return this;
+    }
+
+    /**
+     * Renders the message and sends it to every matching online player
+     *
+     * @return how many players it will be sent to
+     */
+    public int send() {
+        final List<Player> recipients = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers())
+            if (this.permission == null || player.hasPermission(this.permission))
+                recipients.add(player);
+
+        if (recipients.isEmpty()) return 0;
+
+        final Rendered rendered = render();
+
+        if (this.playersPerTick == 0 || recipients.size() <= this.playersPerTick) {
+            for (Player player : recipients)
+                rendered.sendTo(player);
+
+            return recipients.size();
+        }
+
+        final int perTick = this.playersPerTick;
+        new BukkitRunnable() {
+            private int index = 0;
+
+            @Override
+            public void run() {
+                final int end = Math.min(recipients.size(), this.index + perTick);
+
+                for (; this.index < end; this.index++) {
+                    final Player player = recipients.get(this.index);
+                    if (player.isOnline()) rendered.sendTo(player);
+                }
+
+                if (this.index >= recipients.size()) cancel();
+            }
+        }.runTaskTimer(FlightPlugin.getInstance(), 0L, 1L);
+
+        return recipients.size();
+    }
+
+    private Rendered render() {
+        final String[] formatted = new String[this.lines.length];
+        final boolean[] dynamic = new boolean[this.lines.length];
+
+        for (int i = 0; i < this.lines.length; i++) {
+            dynamic[i] = this.placeholders && PlaceholderResolver.hasPlaceholders(this.lines[i]);
+            if (!dynamic[i]) formatted[i] = Common.format(this.prefix, this.lines[i]);
+        }
+
+        return new Rendered(this.lines, formatted, dynamic, this.prefix);
+    }
+
+    private static final class Rendered {
+
+        private final String[] raw;
+        private final String[] formatted;
+        private final boolean[] dynamic;
+        private final boolean prefix;
+
+        private Rendered(String[] raw, String[] formatted, boolean[] dynamic, boolean prefix) {
+            this.raw = raw;
+            this.formatted = formatted;
+            this.dynamic = dynamic;
+            this.prefix = prefix;
+        }
+
+        private void sendTo(Player player) {
+            for (int i = 0; i < this.raw.length; i++) {
+                if (this.dynamic[i])
+                    Common.tell(player, this.prefix, PlaceholderResolver.resolve(player, this.raw[i]));
+                else
+                    Common.send(player, this.formatted[i]);
+            }
+        }
+    }
+}
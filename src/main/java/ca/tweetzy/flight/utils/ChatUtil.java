@@ -18,9 +18,12 @@
 
 package ca.tweetzy.flight.utils;
 
+import ca.tweetzy.flight.collection.LruCache;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.WordUtils;
 
+import java.util.Arrays;
+
 /**
  * Date Created: April 10 2022
  * Time Created: 1:48 p.m.
@@ -32,6 +35,11 @@ public final class ChatUtil {
 
     private final static int CENTER_PX = 154;
 
+    private final static int MAX_CACHED_LENGTH = 512;
+
+    // raw message -> centered result, most centered lines are static (headers, syntax blocks)
+    private final static LruCache<String, String> CENTERED = new LruCache<>(512);
+
     /**
      * It takes an enum and returns a string with the first letter of each word capitalized
      *
@@ -106,39 +114,94 @@ public final class ChatUtil {
      * @return A string with the message centered.
      */
     public static String centerMessage(String message) {
+        // %pl_name% / %pl_prefix% can change at runtime, so those results aren't memoized
+        final boolean cacheable = message.length() <= MAX_CACHED_LENGTH && !message.contains("%pl_");
+
+        if (cacheable) {
+            final String cached = CENTERED.get(message);
+            if (cached != null) return cached;
+        }
+
         String[] lines = Common.colorize(message).split("\n", 40);
         StringBuilder returnMessage = new StringBuilder();
 
-
         for (String line : lines) {
             int messagePxSize = 0;
             boolean previousCode = false;
             boolean isBold = false;
 
-            for (char c : line.toCharArray()) {
+            for (int i = 0; i < line.length(); i++) {
+                final char c = line.charAt(i);
+
                 if (c == '§') {
                     previousCode = true;
                 } else if (previousCode) {
                     previousCode = false;
                     isBold = c == 'l';
                 } else {
-                    DefaultFontInfo dFI = DefaultFontInfo.getDefaultFontInfo(c);
-                    messagePxSize = isBold ? messagePxSize + dFI.getBoldLength() : messagePxSize + dFI.getLength();
+                    messagePxSize += isBold ? FontWidths.bold(c) : FontWidths.regular(c);
                     messagePxSize++;
                 }
             }
-            int toCompensate = CENTER_PX - messagePxSize / 2;
-            int spaceLength = DefaultFontInfo.SPACE.getLength() + 1;
-            int compensated = 0;
-            StringBuilder sb = new StringBuilder();
-            while (compensated < toCompensate) {
-                sb.append(" ");
-                compensated += spaceLength;
+
+            final int toCompensate = CENTER_PX - messagePxSize / 2;
+            returnMessage.append(FontWidths.padding(toCompensate)).append(line).append("\n");
+        }
+
+        final String centered = returnMessage.toString();
+        if (cacheable) CENTERED.put(message, centered);
+
+        return centered;
+    }
+
+    /**
+     * Pixel widths of the default font, indexed by character
+     */
+    private static final class FontWidths {
+
+        private static final int[] REGULAR = new int[128];
+        private static final int[] BOLD = new int[128];
+
+        private static final int SPACE_LENGTH = DefaultFontInfo.SPACE.getLength() + 1;
+        private static final String[] PADDING = new String[CENTER_PX / SPACE_LENGTH + 2];
+
+        static {
+            Arrays.fill(REGULAR, DefaultFontInfo.DEFAULT.getLength());
+            Arrays.fill(BOLD, DefaultFontInfo.DEFAULT.getBoldLength());
+
+            // walk backwards so the first constant for a character wins, like getDefaultFontInfo
+            final DefaultFontInfo[] infos = DefaultFontInfo.values();
+            for (int i = infos.length - 1; i >= 0; i--) {
+                if (infos[i] == DefaultFontInfo.DEFAULT) continue;
+
+                REGULAR[infos[i].getCharacter()] = infos[i].getLength();
+                BOLD[infos[i].getCharacter()] = infos[i].getBoldLength();
+            }
+
+            final StringBuilder padding = new StringBuilder();
+            for (int i = 0; i < PADDING.length; i++) {
+                PADDING[i] = padding.toString();
+                padding.append(' ');
             }
-            returnMessage.append(sb.toString()).append(line).append("\n");
         }
 
-        return returnMessage.toString();
+        static int regular(char c) {
+            return c < 128 ? REGULAR[c] : DefaultFontInfo.DEFAULT.getLength();
+        }
+
+        static int bold(char c) {
+            return c < 128 ? BOLD[c] : DefaultFontInfo.DEFAULT.getBoldLength();
+        }
+
+        /**
+         * @return enough spaces to cover the given amount of pixels
+         */
+        static String padding(int pixels) {
+            if (pixels <= 0) return "";
+
+            final int spaces = (pixels + SPACE_LENGTH - 1) / SPACE_LENGTH;
+            return spaces < PADDING.length ? PADDING[spaces] : StringUtils.repeat(" ", spaces);
+        }
     }
 
     enum DefaultFontInfo {
@@ -21,9 +21,10 @@ package ca.tweetzy.flight.utils;
 import ca.tweetzy.flight.FlightPlugin;
 import ca.tweetzy.flight.utils.colors.ColorFormatter;
 import lombok.experimental.UtilityClass;
-import org.bukkit.Bukkit;
+import net.md_5.bungee.api.chat.BaseComponent;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 
 import java.util.List;
 import java.util.regex.Pattern;
@@ -40,6 +41,7 @@ public final class Common {
 
     public String PREFIX = "[FlightCore]";
     public String PLUGIN_NAME = "FlightCore";
+    private boolean COMPONENT_OUTPUT = false;
 
     public void setPrefix(String prefix) {
         PREFIX = prefix;
@@ -49,6 +51,14 @@ public final class Common {
         PLUGIN_NAME = pluginName;
     }
 
+    /**
+     * When enabled, messages to players are sent as cached chat components instead of legacy strings,
+     * so the server doesn't have to parse the same color codes again on every send
+     */
+    public void setComponentOutput(boolean componentOutput) {
+        COMPONENT_OUTPUT = componentOutput;
+    }
+
     public void tell(CommandSender sender,  List<String> messages) {
         tell(sender, true, messages);
     }
@@ -66,20 +76,62 @@ public final class Common {
     }
 
     public void tell(CommandSender sender, boolean addPrefix, String... messages) {
-        final String prefix = (PREFIX.length() == 0 || !addPrefix) ? "" : PREFIX + " ";
+        final boolean components = COMPONENT_OUTPUT && sender instanceof Player;
 
         for (String message : messages) {
-            message = colorize(prefix + message);
-            message = message.replace("%pl_name%", PLUGIN_NAME);
-            message = message.replace("%pl_prefix%", PREFIX);
+            if (components)
+                sender.spigot().sendMessage(components(addPrefix, message));
+            else
+                sender.sendMessage(format(addPrefix, message));
+        }
+    }
 
-            if (message.startsWith("<center>")) {
-                message = message.replace("<center>", "");
-                message = ChatUtil.centerMessage(message);
-            }
+    /**
+     * Sends an already formatted message, as components if component output is enabled.
+     * Prefer {@link #tell(CommandSender, boolean, String...)} for raw messages, it builds the components without the legacy string.
+     */
+    public void send(CommandSender sender, String formatted) {
+        if (COMPONENT_OUTPUT && sender instanceof Player)
+            sender.spigot().sendMessage(ColorFormatter.toComponents(formatted));
+        else
+            sender.sendMessage(formatted);
+    }
+
+    /**
+     * Builds the chat components of a raw message straight from its color plan, prefix included, so no legacy string
+     * is rendered and parsed again. Centered messages are measured on the legacy text and still go through {@link #format(boolean, String)}
+     */
+    public BaseComponent[] components(boolean addPrefix, String message) {
+        final String prefix = (PREFIX.length() == 0 || !addPrefix) ? "" : PREFIX + " ";
+        final String raw = (prefix + message).replace("%pl_name%", PLUGIN_NAME).replace("%pl_prefix%", PREFIX);
 
-            sender.sendMessage(message);
+        if (raw.startsWith("<center>"))
+            return ColorFormatter.toComponents(format(addPrefix, message));
+
+        return ColorFormatter.components(raw);
+    }
+
+    public void tellComponents(CommandSender sender, BaseComponent... components) {
+        sender.spigot().sendMessage(components);
+    }
+
+    /**
+     * Formats a message exactly like {@link #tell(CommandSender, boolean, String...)} sends it,
+     * useful for messages that are sent often and can be formatted once
+     */
+    public String format(boolean addPrefix, String message) {
+        final String prefix = (PREFIX.length() == 0 || !addPrefix) ? "" : PREFIX + " ";
+
+        message = colorize(prefix + message);
+        message = message.replace("%pl_name%", PLUGIN_NAME);
+        message = message.replace("%pl_prefix%", PREFIX);
+
+        if (message.startsWith("<center>")) {
+            message = message.replace("<center>", "");
+            message = ChatUtil.centerMessage(message);
         }
+
+        return message;
     }
 
     public void tell(CommandSender sender, boolean addPrefix, List<String> messages) {
@@ -90,11 +142,11 @@ public final class Common {
         tell(FlightPlugin.getInstance().getServer().getConsoleSender(), messages);
     }
 
+    /**
+     * @see Broadcast
+     */
     public void broadcast(String permission, boolean prefix, String... messages) {
-        if (permission == null)
-            Bukkit.getOnlinePlayers().forEach(online -> tell(online, prefix, messages));
-        else
-            Bukkit.getOnlinePlayers().stream().filter(online -> online.hasPermission(permission)).forEach(filtered -> tell(filtered, prefix, messages));
+        Broadcast.of(messages).permission(permission).prefix(prefix).send();
     }
 
     public void broadcast(String... messages) {
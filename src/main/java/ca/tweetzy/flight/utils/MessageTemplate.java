@@ -0,0 +1,176 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.utils;
+
+import ca.tweetzy.flight.collection.LruCache;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A message split once into literal text and placeholders, e.g. {@code "Hi %player%, you have {amount} coins"}.
+ * <p>
+ * Placeholders follow the exact rules {@link Replacer} always used: one of {@code { | %}, then one or more
+ * characters that aren't {@code } | %}, then one of {@code } | %}. Placeholders without a value are kept as is.
+ *
+ * @author Kiran Hart
+ */
+public final class MessageTemplate {
+
+    private static final LruCache<String, MessageTemplate> CACHE = new LruCache<>(2048);
+
+    /**
+     * Longer messages are rarely repeated, keep them from pushing out the useful entries
+     */
+    private static final int MAX_CACHED_LENGTH = 1024;
+
+    private final String source;
+
+    // literals[i] comes before placeholder i, the last literal comes after the last placeholder
+    private final String[] literals;
+    private final String[] keys;
+    private final String[] tokens;
+
+    private MessageTemplate(String source, String[] literals, String[] keys, String[] tokens) {
+        this.source = source;
+        this.literals = literals;
+        this.keys = keys;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Returns the parsed template for the source, parsed templates are cached by source
+     *
+     * @param source The message
+     *
+     * @return The parsed template
+     */
+    public static MessageTemplate of(@NonNull final String source) {
+        if (source.length() > MAX_CACHED_LENGTH) return compile(source);
+        return CACHE.computeIfAbsent(source, MessageTemplate::compile);
+    }
+
+    /**
+     * Parses a template without caching it
+     */
+    public static MessageTemplate compile(@NonNull final String source) {
+        final List<String> literals = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+        final List<String> tokens = new ArrayList<>();
+
+        final int length = source.length();
+        int cursor = 0;
+        int i = 0;
+
+        while (i < length) {
+            if (!isOpener(source.charAt(i))) {
+                i++;
+                continue;
+            }
+
+            int keyEnd = i + 1;
+            while (keyEnd < length && !isCloser(source.charAt(keyEnd)))
+                keyEnd++;
+
+            // no closer left anywhere in the message, so nothing after this can match either
+            if (keyEnd == length) break;
+
+            // an empty key ({}, %%, ...) isn't a placeholder, the closer may still open the next one
+            if (keyEnd == i + 1) {
+                i++;
+                continue;
+            }
+
+            literals.add(source.substring(cursor, i));
+            keys.add(source.substring(i + 1, keyEnd));
+            tokens.add(source.substring(i, keyEnd + 1));
+
+            i = cursor = keyEnd + 1;
+        }
+
+        literals.add(cursor == 0 ? source : source.substring(cursor));
+
+        return new MessageTemplate(source, literals.toArray(new String[0]), keys.toArray(new String[0]), tokens.toArray(new String[0]));
+    }
+
+    /**
+     * Renders the template
+     *
+     * @param replacements Alternating keys and values, e.g. {@code "player", name, "amount", 5}.
+     *                     If a key is given more than once the last value wins.
+     *
+     * @return The rendered message
+     */
+    public String render(final Object... replacements) {
+        if (this.keys.length == 0 || replacements == null || replacements.length < 2) return this.source;
+
+        final StringBuilder builder = new StringBuilder(this.source.length() + 16 * this.keys.length);
+
+        for (int i = 0; i < this.keys.length; i++) {
+            builder.append(this.literals[i]);
+
+            final int index = indexOfValue(this.keys[i], replacements);
+            if (index == -1) builder.append(this.tokens[i]);
+            else builder.append(replacements[index]);
+        }
+
+        return builder.append(this.literals[this.keys.length]).toString();
+    }
+
+    public boolean hasPlaceholders() {
+        return this.keys.length != 0;
+    }
+
+    /**
+     * @return the keys of the placeholders in order of appearance, may contain duplicates
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(this.keys));
+    }
+
+    public String getSource() {
+        return this.source;
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * @return the index of the value for the key in the flat key/value array, or -1
+     */
+    private static int indexOfValue(final String key, final Object[] replacements) {
+        for (int i = (replacements.length & ~1) - 2; i >= 0; i -= 2)
+            if (key.equals(replacements[i]))
+                return i + 1;
+
+        return -1;
+    }
+
+    private static boolean isOpener(final char c) {
+        return c == '{' || c == '|' || c == '%';
+    }
+
+    private static boolean isCloser(final char c) {
+        return c == '}' || c == '|' || c == '%';
+    }
+}
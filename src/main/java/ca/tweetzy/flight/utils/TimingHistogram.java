@@ -0,0 +1,110 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small, lock-free latency histogram.
+ * <p>
+ * Samples are recorded in nanoseconds and bucketed by powers of two (in microseconds),
+ * which is plenty of precision to tell a 40ms menu from a 2ms one.
+ */
+public final class TimingHistogram {
+
+    /**
+     * Bucket {@code i} holds samples in the range [2^i, 2^(i+1)) microseconds,
+     * the last bucket holds everything above ~16 seconds.
+     */
+    private static final int BUCKETS = 25;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a single sample
+     *
+     * @param nanos The duration of the sample in nanoseconds
+     */
+    public void record(final long nanos) {
+        if (nanos < 0) return;
+
+        this.buckets.incrementAndGet(bucketOf(nanos));
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public double getMeanMillis() {
+        final long samples = getCount();
+        return samples == 0 ? 0 : (this.totalNanos.sum() / (double) samples) / 1_000_000D;
+    }
+
+    public double getMaxMillis() {
+        return this.maxNanos.get() / 1_000_000D;
+    }
+
+    /**
+     * Estimates the given percentile from the recorded buckets.
+     * The returned value is the upper bound of the bucket the percentile falls into.
+     *
+     * @param percentile A value between 0 and 100
+     *
+     * @return The estimated percentile in milliseconds
+     */
+    public double getPercentileMillis(final double percentile) {
+        final long samples = getCount();
+        if (samples == 0) return 0;
+
+        final long target = (long) Math.ceil(samples * Math.min(100D, Math.max(0D, percentile)) / 100D);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= target)
+                return Math.min((1L << (i + 1)) / 1000D, getMaxMillis());
+        }
+
+        return getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            this.buckets.set(i, 0);
+
+        this.count.reset();
+        this.totalNanos.reset();
+        this.maxNanos.set(0);
+    }
+
+    private static int bucketOf(final long nanos) {
+        final long micros = nanos / 1000;
+        if (micros <= 0) return 0;
+
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+}
@@ -18,19 +18,16 @@
 
 package ca.tweetzy.flight.utils.colors;
 
-import ca.tweetzy.flight.utils.colors.patterns.GradientColorPattern;
-import ca.tweetzy.flight.utils.colors.patterns.RainbowColorPattern;
-import ca.tweetzy.flight.utils.colors.patterns.SolidColorPattern;
-import com.google.common.collect.ImmutableMap;
+import ca.tweetzy.flight.collection.LruCache;
 import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.BaseComponent;
 import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
 
 import javax.annotation.Nonnull;
 import java.awt.*;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -46,38 +43,53 @@ public final class ColorFormatter {
 
     private static final boolean SUPPORTS_RGB = VERSION >= 16;
 
-    private static final List<String> SPECIAL_COLORS = Arrays.asList("&l", "&n", "&o", "&k", "&m", "§l", "§n", "§o", "§k", "§m");
+    private static final String SPECIAL_CODES = "lnokm";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final char[] LEGACY_CODES = HEX_DIGITS;
 
     /**
-     * Cached result of all legacy colors.
+     * Rgb values of the legacy colors, in the order of {@link #LEGACY_CODES}
+     */
+    private static final int[] LEGACY_RGB = {
+            0, 170, 43520, 43690, 11141120, 11141290, 16755200, 11184810,
+            5592405, 5592575, 5635925, 5636095, 16733525, 16733695, 16777045, 16777215
+    };
+
+    /**
+     * Closest legacy color (as an index into {@link #LEGACY_CODES}) of every rgb value, 4 bits per channel.
+     * Used on servers without rgb support, where every colored character needs a lookup.
      *
-     * @since 1.0.0
+     * @since 3.24.0
+     */
+    private static final byte[] LEGACY_LOOKUP = buildLegacyLookup();
+
+    /**
+     * Input to output of {@link #process(String)}, most strings passed in are static (config values, item names, ...)
+     *
+     * @since 3.24.0
      */
-    private static final Map<Color, ChatColor> COLORS = ImmutableMap.<Color, ChatColor>builder()
-            .put(new Color(0), ChatColor.getByChar('0'))
-            .put(new Color(170), ChatColor.getByChar('1'))
-            .put(new Color(43520), ChatColor.getByChar('2'))
-            .put(new Color(43690), ChatColor.getByChar('3'))
-            .put(new Color(11141120), ChatColor.getByChar('4'))
-            .put(new Color(11141290), ChatColor.getByChar('5'))
-            .put(new Color(16755200), ChatColor.getByChar('6'))
-            .put(new Color(11184810), ChatColor.getByChar('7'))
-            .put(new Color(5592405), ChatColor.getByChar('8'))
-            .put(new Color(5592575), ChatColor.getByChar('9'))
-            .put(new Color(5635925), ChatColor.getByChar('a'))
-            .put(new Color(5636095), ChatColor.getByChar('b'))
-            .put(new Color(16733525), ChatColor.getByChar('c'))
-            .put(new Color(16733695), ChatColor.getByChar('d'))
-            .put(new Color(16777045), ChatColor.getByChar('e'))
-            .put(new Color(16777215), ChatColor.getByChar('f')).build();
+    private static final LruCache<String, String> PROCESSED = new LruCache<>(2048);
 
+    /**
+     * Format string to its chat components, see {@link #components(String)}
+     *
+     * @since 3.24.0
+     */
+    private static final LruCache<String, BaseComponent[]> COMPONENTS = new LruCache<>(1024);
 
     /**
-     * Cached result of ColorPatterns.
+     * Legacy formatted string to its chat components, see {@link #toComponents(String)}
      *
-     * @since 1.0.2
+     * @since 3.24.0
+     */
+    private static final LruCache<String, BaseComponent[]> LEGACY_COMPONENTS = new LruCache<>(1024);
+
+    /**
+     * Longer strings are very likely one-off (books, dumps), don't let them push out the useful entries
      */
-    private static final List<ColorPattern> ColorPatternS = Arrays.asList(new SolidColorPattern(), new GradientColorPattern(), new RainbowColorPattern());
+    private static final int MAX_CACHED_LENGTH = 512;
 
     /**
      * Processes a string to add color to it.
@@ -89,12 +101,72 @@ public final class ColorFormatter {
      */
     @Nonnull
     public static String process(@Nonnull String string) {
-        for (ColorPattern ColorPattern : ColorPatternS) {
-            string = ColorPattern.process(string);
-        }
+        // nothing to expand or translate, the output would be the input
+        if (!mayContainFormatting(string)) return string;
+
+        final String cached = PROCESSED.get(string);
+        if (cached != null) return cached;
+
+        final String processed = ColorPlan.compile(string).render();
+        if (string.length() <= MAX_CACHED_LENGTH)
+            PROCESSED.put(string, processed);
+
+        return processed;
+    }
 
-        string = ChatColor.translateAlternateColorCodes('&', string);
-        return string;
+    /**
+     * Empties the cache used by {@link #process(String)}
+     *
+     * @since 3.24.0
+     */
+    public static void clearCache() {
+        PROCESSED.clear();
+        COMPONENTS.clear();
+        LEGACY_COMPONENTS.clear();
+    }
+
+    /**
+     * Compiles a string straight into chat components, hex colors, gradients and rainbows become component colors
+     * without a legacy string in between. The result is cached per input, every call returns its own copy so the
+     * components may be modified (click events, ...).
+     *
+     * @param string The string we want to process
+     *
+     * @since 3.24.0
+     */
+    @Nonnull
+    public static BaseComponent[] components(@Nonnull String string) {
+        if (string.length() > MAX_CACHED_LENGTH)
+            return ComponentRenderer.render(ColorPlan.compile(string));
+
+        return copyOf(COMPONENTS.computeIfAbsent(string, key -> ComponentRenderer.render(ColorPlan.compile(key))));
+    }
+
+    /**
+     * Converts an already processed (legacy formatted) string into chat components, the result is cached per input
+     * so repeated messages skip parsing the legacy codes. Every call returns its own copy so the components may be modified.
+     *
+     * @param legacy The processed string
+     *
+     * @since 3.24.0
+     */
+    @Nonnull
+    public static BaseComponent[] toComponents(@Nonnull String legacy) {
+        if (legacy.length() > MAX_CACHED_LENGTH)
+            return ComponentRenderer.renderLegacy(legacy);
+
+        return copyOf(LEGACY_COMPONENTS.computeIfAbsent(legacy, ComponentRenderer::renderLegacy));
+    }
+
+    /**
+     * The cached arrays are shared, callers get deep copies they are free to change
+     */
+    private static BaseComponent[] copyOf(BaseComponent[] components) {
+        final BaseComponent[] copy = new BaseComponent[components.length];
+        for (int i = 0; i < components.length; i++)
+            copy[i] = components[i].duplicate();
+
+        return copy;
     }
 
     /**
@@ -123,7 +195,7 @@ public final class ColorFormatter {
      */
     @Nonnull
     public static String color(@Nonnull String string, @Nonnull Color color) {
-        return (SUPPORTS_RGB ? ChatColor.of(color) : getClosestColor(color)) + string;
+        return (SUPPORTS_RGB ? ChatColor.of(color) : getClosestColor(color.getRGB() & 0xFFFFFF)) + string;
     }
 
     /**
@@ -137,10 +209,41 @@ public final class ColorFormatter {
      */
     @Nonnull
     public static String color(@Nonnull String string, @Nonnull Color start, @Nonnull Color end) {
-        String originalString = string;
+        return gradient(string, start.getRGB() & 0xFFFFFF, end.getRGB() & 0xFFFFFF);
+    }
 
-        ChatColor[] colors = createGradient(start, end, withoutSpecialChar(string).length());
-        return apply(originalString, colors);
+    /**
+     * Colors a String with a gradiant, without allocating a color per character.
+     *
+     * @param string The string we want to color
+     * @param start  The starting rgb value
+     * @param end    The ending rgb value
+     *
+     * @since 3.24.0
+     */
+    @Nonnull
+    public static String gradient(@Nonnull String string, int start, int end) {
+        final IntUnaryOperator colors = gradientColors(string, start, end);
+        return colors == null ? string : apply(string, colors);
+    }
+
+    /**
+     * @return the color of every colored character of a gradient, or null if no character gets one
+     */
+    static IntUnaryOperator gradientColors(@Nonnull String string, int start, int end) {
+        final int steps = countColored(string);
+        if (steps == 0) return null;
+
+        final int startR = (start >> 16) & 0xFF, startG = (start >> 8) & 0xFF, startB = start & 0xFF;
+        final int endR = (end >> 16) & 0xFF, endG = (end >> 8) & 0xFF, endB = end & 0xFF;
+
+        // same integer stepping as always, so existing gradients keep their exact colors
+        final int divisor = Math.max(1, steps - 1);
+        final int stepR = Math.abs(startR - endR) / divisor * (startR < endR ? 1 : -1);
+        final int stepG = Math.abs(startG - endG) / divisor * (startG < endG ? 1 : -1);
+        final int stepB = Math.abs(startB - endB) / divisor * (startB < endB ? 1 : -1);
+
+        return index -> ((startR + stepR * index) << 16) | ((startG + stepG * index) << 8) | (startB + stepB * index);
     }
 
     /**
@@ -153,10 +256,19 @@ public final class ColorFormatter {
      */
     @Nonnull
     public static String rainbow(@Nonnull String string, float saturation) {
-        String originalString = string;
+        final IntUnaryOperator colors = rainbowColors(string, saturation);
+        return colors == null ? string : apply(string, colors);
+    }
+
+    /**
+     * @return the color of every colored character of a rainbow, or null if no character gets one
+     */
+    static IntUnaryOperator rainbowColors(@Nonnull String string, float saturation) {
+        final int steps = countColored(string);
+        if (steps == 0) return null;
 
-        ChatColor[] colors = createRainbow(withoutSpecialChar(string).length(), saturation);
-        return apply(originalString, colors);
+        final double colorStep = (1.00 / steps);
+        return index -> Color.HSBtoRGB((float) (colorStep * index), saturation, saturation) & 0xFFFFFF;
     }
 
     /**
@@ -168,8 +280,38 @@ public final class ColorFormatter {
      */
     @Nonnull
     public static ChatColor getColor(@Nonnull String string) {
-        return SUPPORTS_RGB ? ChatColor.of(new Color(Integer.parseInt(string, 16)))
-                : getClosestColor(new Color(Integer.parseInt(string, 16)));
+        return getColor(Integer.parseInt(string, 16));
+    }
+
+    /**
+     * Gets a color from an rgb value.
+     *
+     * @param rgb The rgb value of the color
+     *
+     * @since 3.24.0
+     */
+    @Nonnull
+    public static ChatColor getColor(int rgb) {
+        return SUPPORTS_RGB ? ChatColor.of(new Color(rgb)) : getClosestColor(rgb);
+    }
+
+    /**
+     * Appends the color code of an rgb value, the same text {@code getColor(rgb).toString()} produces.
+     *
+     * @param builder The builder to append to
+     * @param rgb     The rgb value of the color
+     *
+     * @since 3.24.0
+     */
+    public static void appendColor(@Nonnull StringBuilder builder, int rgb) {
+        if (!SUPPORTS_RGB) {
+            builder.append(ChatColor.COLOR_CHAR).append(LEGACY_CODES[LEGACY_LOOKUP[lookupIndex(rgb)]]);
+            return;
+        }
+
+        builder.append(ChatColor.COLOR_CHAR).append('x');
+        for (int shift = 20; shift >= 0; shift -= 4)
+            builder.append(ChatColor.COLOR_CHAR).append(HEX_DIGITS[(rgb >> shift) & 0xF]);
     }
 
     /**
@@ -188,121 +330,99 @@ public final class ColorFormatter {
     }
 
     @Nonnull
-    private static String apply(@Nonnull String source, ChatColor[] colors) {
-        StringBuilder specialColors = new StringBuilder();
-        StringBuilder stringBuilder = new StringBuilder();
-        String[] characters = source.split("");
+    private static String apply(@Nonnull String source, IntUnaryOperator colorAt) {
+        final int length = source.length();
+        final StringBuilder builder = new StringBuilder(length * (SUPPORTS_RGB ? 15 : 3));
+
+        // formatting codes (&l, &n, ...) are repeated after every color, &r clears them
+        final StringBuilder specialColors = new StringBuilder();
         int outIndex = 0;
-        for (int i = 0; i < characters.length; i++) {
-            if (characters[i].equals("&") || characters[i].equals("§")) {
-                if (i + 1 < characters.length) {
-                    if (characters[i + 1].equals("r")) {
-                        specialColors.setLength(0);
-                    } else {
-                        specialColors.append(characters[i]);
-                        specialColors.append(characters[i + 1]);
-                    }
-                    i++;
-                } else
-                    stringBuilder.append(colors[outIndex++]).append(specialColors).append(characters[i]);
-            } else
-                stringBuilder.append(colors[outIndex++]).append(specialColors).append(characters[i]);
-        }
-        return stringBuilder.toString();
-    }
 
-    @Nonnull
-    private static String withoutSpecialChar(@Nonnull String source) {
-        String workingString = source;
-        for (String color : SPECIAL_COLORS) {
-            if (workingString.contains(color)) {
-                workingString = workingString.replace(color, "");
+        for (int i = 0; i < length; i++) {
+            final char c = source.charAt(i);
+
+            if ((c == '&' || c == ChatColor.COLOR_CHAR) && i + 1 < length) {
+                final char next = source.charAt(++i);
+
+                if (next == 'r') specialColors.setLength(0);
+                else specialColors.append(c).append(next);
+                continue;
             }
+
+            appendColor(builder, colorAt.applyAsInt(outIndex++));
+            builder.append(specialColors).append(c);
         }
-        return workingString;
+
+        return builder.toString();
     }
 
     /**
-     * Returns a rainbow array of chat colors.
-     *
-     * @param step       How many colors we return
-     * @param saturation The saturation of the rainbow
-     *
-     * @return The array of colors
-     *
-     * @since 1.0.3
+     * @return how many characters get a color of their own, formatting codes are skipped
      */
-    @Nonnull
-    private static ChatColor[] createRainbow(int step, float saturation) {
-        ChatColor[] colors = new ChatColor[step];
-        double colorStep = (1.00 / step);
-
-        for (int i = 0; i < step; i++) {
-            Color color = Color.getHSBColor((float) (colorStep * i), saturation, saturation);
-            if (SUPPORTS_RGB) {
-                colors[i] = ChatColor.of(color);
-            } else {
-                colors[i] = getClosestColor(color);
+    private static int countColored(@Nonnull String source) {
+        final int length = source.length();
+        int count = length;
+
+        for (int i = 0; i + 1 < length; i++) {
+            final char c = source.charAt(i);
+            if ((c == '&' || c == ChatColor.COLOR_CHAR) && SPECIAL_CODES.indexOf(source.charAt(i + 1)) != -1) {
+                count -= 2;
+                i++;
             }
         }
 
-        return colors;
+        return count;
     }
 
-    /**
-     * Returns a gradient array of chat colors.
-     *
-     * @param start The starting color.
-     * @param end   The ending color.
-     * @param step  How many colors we return.
-     *
-     * @author TheViperShow
-     * @since 1.0.0
-     */
-    @Nonnull
-    private static ChatColor[] createGradient(@Nonnull Color start, @Nonnull Color end, int step) {
-        ChatColor[] colors = new ChatColor[step];
-        int stepR = Math.abs(start.getRed() - end.getRed()) / (step - 1);
-        int stepG = Math.abs(start.getGreen() - end.getGreen()) / (step - 1);
-        int stepB = Math.abs(start.getBlue() - end.getBlue()) / (step - 1);
-        int[] direction = new int[] {
-                start.getRed() < end.getRed() ? +1 : -1,
-                start.getGreen() < end.getGreen() ? +1 : -1,
-                start.getBlue() < end.getBlue() ? +1 : -1
-        };
-
-        for (int i = 0; i < step; i++) {
-            Color color = new Color(start.getRed() + ((stepR * i) * direction[0]), start.getGreen() + ((stepG * i) * direction[1]), start.getBlue() + ((stepB * i) * direction[2]));
-            if (SUPPORTS_RGB) {
-                colors[i] = ChatColor.of(color);
-            } else {
-                colors[i] = getClosestColor(color);
-            }
+    private static boolean mayContainFormatting(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c == '&' || c == '#' || c == '<') return true;
         }
 
-        return colors;
+        return false;
     }
 
     /**
      * Returns the closest legacy color from an rgb color
      *
-     * @param color The color we want to transform
+     * @param rgb The packed rgb value we want to transform
      *
      * @since 1.0.0
      */
     @Nonnull
-    private static ChatColor getClosestColor(Color color) {
-        Color nearestColor = null;
-        double nearestDistance = Integer.MAX_VALUE;
-
-        for (Color constantColor : COLORS.keySet()) {
-            double distance = Math.pow(color.getRed() - constantColor.getRed(), 2) + Math.pow(color.getGreen() - constantColor.getGreen(), 2) + Math.pow(color.getBlue() - constantColor.getBlue(), 2);
-            if (nearestDistance > distance) {
-                nearestColor = constantColor;
-                nearestDistance = distance;
+    private static ChatColor getClosestColor(int rgb) {
+        return ChatColor.getByChar(LEGACY_CODES[LEGACY_LOOKUP[lookupIndex(rgb)]]);
+    }
+
+    /**
+     * @return the index of the rgb value in {@link #LEGACY_LOOKUP}, 4 bits per channel
+     */
+    private static int lookupIndex(int rgb) {
+        return ((rgb >> 12) & 0xF00) | ((rgb >> 8) & 0xF0) | ((rgb >> 4) & 0xF);
+    }
+
+    private static byte[] buildLegacyLookup() {
+        final int[] legacy = LEGACY_RGB;
+        final byte[] lookup = new byte[4096];
+
+        for (int index = 0; index < lookup.length; index++) {
+            // compare against the center of the 16x16x16 block
+            final int red = ((index >> 8) << 4) + 8, green = (((index >> 4) & 0xF) << 4) + 8, blue = ((index & 0xF) << 4) + 8;
+            int nearestDistance = Integer.MAX_VALUE;
+
+            for (int i = 0; i < legacy.length; i++) {
+                final int dr = red - ((legacy[i] >> 16) & 0xFF), dg = green - ((legacy[i] >> 8) & 0xFF), db = blue - (legacy[i] & 0xFF);
+                final int distance = dr * dr + dg * dg + db * db;
+
+                if (nearestDistance > distance) {
+                    nearestDistance = distance;
+                    lookup[index] = (byte) i;
+                }
             }
         }
-        return COLORS.get(nearestColor);
+
+        return lookup;
     }
 
     /**
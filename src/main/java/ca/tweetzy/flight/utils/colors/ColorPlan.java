@@ -0,0 +1,266 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.utils.colors;
+
+import lombok.Getter;
+import net.md_5.bungee.api.ChatColor;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A format string compiled into an immutable list of segments by a single left to right scan.
+ * <p>
+ * Understands the same syntax as the regex {@link ColorPattern}s: {@code &#hex} / {@code #hex},
+ * {@code <GRADIENT:hex>..</GRADIENT:hex>} and {@code <RAINBOWn>..</RAINBOW>}, and renders to the
+ * same legacy string {@link ColorFormatter#process(String)} always produced.
+ *
+ * @author Kiran Hart
+ */
+public final class ColorPlan {
+
+    public enum SegmentType {
+        TEXT, SOLID, GRADIENT, RAINBOW
+    }
+
+    private static final String GRADIENT_OPEN = "<GRADIENT:";
+    private static final String GRADIENT_CLOSE = "</GRADIENT:";
+    private static final String RAINBOW_OPEN = "<RAINBOW";
+    private static final String RAINBOW_CLOSE = "</RAINBOW>";
+
+    // what a nested scan is allowed to match, gradients are expanded before rainbows and solids before both
+    private static final int SOLIDS = 0, GRADIENTS = 1, RAINBOWS = 2;
+
+    @Getter
+    private final List<Segment> segments;
+
+    private ColorPlan(List<Segment> segments) {
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Compiles the given format string
+     *
+     * @param string The string to compile
+     *
+     * @return The compiled plan
+     */
+    @Nonnull
+    public static ColorPlan compile(@Nonnull String string) {
+        return new ColorPlan(scan(string, RAINBOWS));
+    }
+
+    /**
+     * @return the legacy formatted string, & codes translated
+     */
+    @Nonnull
+    public String render() {
+        return ChatColor.translateAlternateColorCodes('&', renderRaw(this.segments));
+    }
+
+    /**
+     * @return true if the plan is one piece of text without any hex, gradient or rainbow
+     */
+    public boolean isPlainText() {
+        return this.segments.isEmpty() || (this.segments.size() == 1 && this.segments.get(0).type == SegmentType.TEXT);
+    }
+
+    private static String renderRaw(List<Segment> segments) {
+        if (segments.size() == 1 && segments.get(0).type == SegmentType.TEXT)
+            return segments.get(0).text;
+
+        final StringBuilder builder = new StringBuilder();
+        for (Segment segment : segments)
+            segment.appendTo(builder);
+
+        return builder.toString();
+    }
+
+    private static List<Segment> scan(String string, int level) {
+        final List<Segment> segments = new ArrayList<>();
+        final int length = string.length();
+
+        int textStart = 0;
+        int i = 0;
+
+        while (i < length) {
+            final char c = string.charAt(i);
+            Segment segment = null;
+            int end = i;
+
+            if (c == '#' || (c == '&' && i + 1 < length && string.charAt(i + 1) == '#')) {
+                final int hexStart = c == '#' ? i + 1 : i + 2;
+                if (isHex(string, hexStart, 6)) {
+                    segment = Segment.solid(Integer.parseInt(string.substring(hexStart, hexStart + 6), 16));
+                    end = hexStart + 6;
+                }
+            } else if (c == '<' && level >= GRADIENTS && string.startsWith(GRADIENT_OPEN, i)) {
+                final int contentStart = i + GRADIENT_OPEN.length() + 7;
+
+                if (isHex(string, i + GRADIENT_OPEN.length(), 6) && contentStart <= length && string.charAt(contentStart - 1) == '>') {
+                    final int close = findGradientClose(string, contentStart);
+
+                    if (close != -1) {
+                        final int startColor = Integer.parseInt(string.substring(i + GRADIENT_OPEN.length(), contentStart - 1), 16);
+                        final int endColor = Integer.parseInt(string.substring(close + GRADIENT_CLOSE.length(), close + GRADIENT_CLOSE.length() + 6), 16);
+
+                        // the content keeps any nested tags as plain text, only hex colors inside it are expanded
+                        segment = Segment.gradient(renderRaw(scan(string.substring(contentStart, close), SOLIDS)), startColor, endColor);
+                        end = close + GRADIENT_CLOSE.length() + 7;
+                    }
+                }
+            } else if (c == '<' && level >= RAINBOWS && string.startsWith(RAINBOW_OPEN, i)) {
+                final int digitsStart = i + RAINBOW_OPEN.length();
+                int digitsEnd = digitsStart;
+                while (digitsEnd < length && digitsEnd - digitsStart < 4 && string.charAt(digitsEnd) >= '0' && string.charAt(digitsEnd) <= '9')
+                    digitsEnd++;
+
+                final int digits = digitsEnd - digitsStart;
+
+                if (digits >= 1 && digits <= 3 && digitsEnd < length && string.charAt(digitsEnd) == '>') {
+                    final int contentStart = digitsEnd + 1;
+                    final int close = indexOfOnLine(string, RAINBOW_CLOSE, contentStart);
+
+                    if (close != -1) {
+                        final float saturation = Float.parseFloat(string.substring(digitsStart, digitsEnd));
+
+                        segment = Segment.rainbow(renderRaw(scan(string.substring(contentStart, close), GRADIENTS)), saturation);
+                        end = close + RAINBOW_CLOSE.length();
+                    }
+                }
+            }
+
+            if (segment == null) {
+                i++;
+                continue;
+            }
+
+            if (textStart < i)
+                segments.add(Segment.text(string.substring(textStart, i)));
+
+            segments.add(segment);
+            i = textStart = end;
+        }
+
+        if (textStart < length)
+            segments.add(Segment.text(textStart == 0 ? string : string.substring(textStart)));
+
+        return segments;
+    }
+
+    /**
+     * @return the index of the first {@code </GRADIENT:hex>} on the same line, or -1
+     */
+    private static int findGradientClose(String string, int from) {
+        int close = indexOfOnLine(string, GRADIENT_CLOSE, from);
+
+        while (close != -1) {
+            final int hexStart = close + GRADIENT_CLOSE.length();
+            if (isHex(string, hexStart, 6) && hexStart + 6 < string.length() && string.charAt(hexStart + 6) == '>')
+                return close;
+
+            close = indexOfOnLine(string, GRADIENT_CLOSE, close + 1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Like {@link String#indexOf(String, int)}, but gives up at a line terminator (regex {@code .} never matches one)
+     */
+    private static int indexOfOnLine(String string, String needle, int from) {
+        final int index = string.indexOf(needle, from);
+        if (index == -1) return -1;
+
+        for (int i = from; i < index; i++) {
+            final char c = string.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return -1;
+        }
+
+        return index;
+    }
+
+    private static boolean isHex(String string, int start, int count) {
+        if (start + count > string.length()) return false;
+
+        for (int i = start; i < start + count; i++) {
+            final char c = string.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) return false;
+        }
+
+        return true;
+    }
+
+    @Getter
+    public static final class Segment {
+
+        private final SegmentType type;
+
+        /**
+         * The text for {@link SegmentType#TEXT}, the (already expanded) content for gradients and rainbows
+         */
+        private final String text;
+        private final int startColor;
+        private final int endColor;
+        private final float saturation;
+
+        private Segment(SegmentType type, String text, int startColor, int endColor, float saturation) {
+            this.type = type;
+            this.text = text;
+            this.startColor = startColor;
+            this.endColor = endColor;
+            this.saturation = saturation;
+        }
+
+        static Segment text(String text) {
+            return new Segment(SegmentType.TEXT, text, 0, 0, 0);
+        }
+
+        static Segment solid(int color) {
+            return new Segment(SegmentType.SOLID, null, color, color, 0);
+        }
+
+        static Segment gradient(String content, int startColor, int endColor) {
+            return new Segment(SegmentType.GRADIENT, content, startColor, endColor, 0);
+        }
+
+        static Segment rainbow(String content, float saturation) {
+            return new Segment(SegmentType.RAINBOW, content, 0, 0, saturation);
+        }
+
+        void appendTo(StringBuilder builder) {
+            switch (this.type) {
+                case TEXT:
+                    builder.append(this.text);
+                    break;
+                case SOLID:
+                    ColorFormatter.appendColor(builder, this.startColor);
+                    break;
+                case GRADIENT:
+                    builder.append(ColorFormatter.gradient(this.text, this.startColor, this.endColor));
+                    break;
+                case RAINBOW:
+                    builder.append(ColorFormatter.rainbow(this.text, this.saturation));
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Flight
+ * Copyright 2023 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.flight.utils.colors;
+
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Builds chat components straight from a {@link ColorPlan}. Solid colors, gradients and rainbows become component
+ * colors directly instead of being written out as legacy codes and parsed back by {@link TextComponent#fromLegacyText(String)}.
+ * <p>
+ * Legacy codes inside the text (&amp;c, &amp;l, §x hex, ...) are applied the same way the client would, urls are not
+ * turned into click events.
+ */
+final class ComponentRenderer {
+
+    private static final String CODES = "0123456789abcdefklmnorx";
+
+    private final List<BaseComponent> components = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Whether &amp; starts a code like §, true for raw format strings, false for already processed ones
+     */
+    private final boolean ampersandCodes;
+
+    private ChatColor color;
+    private boolean bold, italic, underlined, strikethrough, obfuscated;
+
+    private ComponentRenderer(boolean ampersandCodes) {
+        this.ampersandCodes = ampersandCodes;
+    }
+
+    /**
+     * @return the components of a compiled format string
+     */
+    @Nonnull
+    static BaseComponent[] render(@Nonnull ColorPlan plan) {
+        final ComponentRenderer renderer = new ComponentRenderer(true);
+
+        for (ColorPlan.Segment segment : plan.getSegments()) {
+            switch (segment.getType()) {
+                case TEXT:
+                    renderer.appendText(segment.getText());
+                    break;
+                case SOLID:
+                    renderer.setColor(ColorFormatter.getColor(segment.getStartColor()));
+                    break;
+                case GRADIENT:
+                    renderer.appendColored(segment.getText(), ColorFormatter.gradientColors(segment.getText(), segment.getStartColor(), segment.getEndColor()));
+                    break;
+                case RAINBOW:
+                    renderer.appendColored(segment.getText(), ColorFormatter.rainbowColors(segment.getText(), segment.getSaturation()));
+                    break;
+            }
+        }
+
+        return renderer.finish();
+    }
+
+    /**
+     * @return the components of an already processed string, only § starts a code
+     */
+    @Nonnull
+    static BaseComponent[] renderLegacy(@Nonnull String legacy) {
+        final ComponentRenderer renderer = new ComponentRenderer(false);
+        renderer.appendText(legacy);
+        return renderer.finish();
+    }
+
+    private void appendText(CharSequence source) {
+        final int length = source.length();
+
+        for (int i = 0; i < length; i++) {
+            final char c = source.charAt(i);
+
+            if ((c == ChatColor.COLOR_CHAR || (this.ampersandCodes && c == '&')) && i + 1 < length) {
+                final int consumed = applyCode(source, i);
+                if (consumed > 0) {
+                    i += consumed - 1;
+                    continue;
+                }
+            }
+
+            this.text.append(c);
+        }
+    }
+
+    /**
+     * Gives every visible character its own color, formatting codes in the content are repeated after every color
+     * exactly like {@link ColorFormatter#gradient(String, int, int)} does
+     */
+    private void appendColored(String content, IntUnaryOperator colors) {
+        if (colors == null) {
+            appendText(content);
+            return;
+        }
+
+        final int length = content.length();
+        final StringBuilder specialColors = new StringBuilder();
+        int index = 0;
+
+        for (int i = 0; i < length; i++) {
+            final char c = content.charAt(i);
+
+            if ((c == '&' || c == ChatColor.COLOR_CHAR) && i + 1 < length) {
+                final char next = content.charAt(++i);
+
+                if (next == 'r') specialColors.setLength(0);
+                else specialColors.append(c).append(next);
+                continue;
+            }
+
+            setColor(ColorFormatter.getColor(colors.applyAsInt(index++)));
+            appendText(specialColors);
+            this.text.append(c);
+        }
+    }
+
+    /**
+     * @return how many characters the code at {@code index} spans, 0 if it isn't a code
+     */
+    private int applyCode(CharSequence source, int index) {
+        final char code = Character.toLowerCase(source.charAt(index + 1));
+        if (CODES.indexOf(code) == -1) return 0;
+
+        if (code == 'x') {
+            // §x§r§r§g§g§b§b
+            if (index + 14 > source.length()) return 2;
+
+            int rgb = 0;
+            for (int i = index + 2; i < index + 14; i += 2) {
+                final int digit = Character.digit(source.charAt(i + 1), 16);
+                if (digit == -1 || !isMarker(source.charAt(i))) return 2;
+                rgb = (rgb << 4) | digit;
+            }
+
+            setColor(ColorFormatter.getColor(rgb));
+            return 14;
+        }
+
+        final ChatColor chatColor = ChatColor.getByChar(code);
+        flush();
+
+        if (chatColor == ChatColor.BOLD) this.bold = true;
+        else if (chatColor == ChatColor.ITALIC) this.italic = true;
+        else if (chatColor == ChatColor.UNDERLINE) this.underlined = true;
+        else if (chatColor == ChatColor.STRIKETHROUGH) this.strikethrough = true;
+        else if (chatColor == ChatColor.MAGIC) this.obfuscated = true;
+        // a fresh component without color or formatting, the client falls back to its defaults
+        else if (chatColor == ChatColor.RESET) setColor(null);
+        else setColor(chatColor);
+
+        return 2;
+    }
+
+    private boolean isMarker(char c) {
+        return c == ChatColor.COLOR_CHAR || (this.ampersandCodes && c == '&');
+    }
+
+    /**
+     * A color resets every formatting code, the same as it does in legacy text
+     */
+    private void setColor(ChatColor color) {
+        flush();
+        this.color = color;
+        this.bold = this.italic = this.underlined = this.strikethrough = this.obfuscated = false;
+    }
+
+    private void flush() {
+        if (this.text.length() == 0) return;
+
+        final TextComponent component = new TextComponent(this.text.toString());
+        if (this.color != null) component.setColor(this.color);
+        if (this.bold) component.setBold(true);
+        if (this.italic) component.setItalic(true);
+        if (this.underlined) component.setUnderlined(true);
+        if (this.strikethrough) component.setStrikethrough(true);
+        if (this.obfuscated) component.setObfuscated(true);
+
+        this.components.add(component);
+        this.text.setLength(0);
+    }
+
+    private BaseComponent[] finish() {
+        flush();
+        if (this.components.isEmpty()) this.components.add(new TextComponent(""));
+
+        return this.components.toArray(new BaseComponent[0]);
+    }
+}
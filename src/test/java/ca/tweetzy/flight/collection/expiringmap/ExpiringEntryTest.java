@@ -0,0 +1,37 @@
+package ca.tweetzy.flight.collection.expiringmap;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExpiringEntryTest {
+    private final ExpiringMap.ExpiringEntry<String, String> entry = new ExpiringMap.ExpiringEntry<String, String>("key", "value",
+            new AtomicReference<ExpirationPolicy>(ExpirationPolicy.ACCESSED), new AtomicLong(TimeUnit.SECONDS.toNanos(60)));
+
+    @Test
+    public void shouldKeepTheDeadlineOfTheBufferedAccess() {
+        long accessDeadline = entry.expectedExpiration.get() + 1_000;
+        entry.pendingExpiration = accessDeadline;
+
+        entry.applyPendingExpiration();
+
+        assertEquals(accessDeadline, entry.expectedExpiration.get());
+        assertEquals(Long.MIN_VALUE, entry.pendingExpiration);
+        assertEquals(accessDeadline, entry.deadline());
+    }
+
+    @Test
+    public void shouldNotMoveTheDeadlineBackwards() {
+        long expected = entry.expectedExpiration.get();
+        entry.pendingExpiration = expected - 1_000;
+
+        entry.applyPendingExpiration();
+
+        assertEquals(expected, entry.expectedExpiration.get());
+        assertEquals(Long.MIN_VALUE, entry.pendingExpiration);
+    }
+}
@@ -0,0 +1,132 @@
+package ca.tweetzy.flight.collection.expiringmap.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drives the wheel with made up {@code nanoTime} values. Every wheel uses a tick of 10ns and 4 buckets, so a full
+ * rotation is 40ns.
+ */
+public class TimerWheelTest {
+    private static final long TICK = 10;
+    private static final int BUCKETS = 4;
+
+    private final TimerWheel<String> wheel = new TimerWheel<String>(TICK, BUCKETS, 0);
+    private final Recorder fired = new Recorder();
+
+    @Test
+    public void shouldFireOnceDeadlinePassed() {
+        wheel.schedule("a", 15);
+
+        wheel.advance(19, fired);
+        fired.expect();
+        wheel.advance(20, fired);
+        fired.expect("a");
+        wheel.advance(60, fired);
+        fired.expect();
+    }
+
+    @Test
+    public void shouldKeepDeadlinesBeyondOneRotation() {
+        // tick 14 shares its bucket with ticks 2, 6 and 10
+        wheel.schedule("b", 135);
+
+        for (long now = 0; now < 140; now += 5) {
+            wheel.advance(now, fired);
+            fired.expect();
+        }
+
+        wheel.advance(140, fired);
+        fired.expect("b");
+    }
+
+    @Test
+    public void shouldDropCancelledTimeouts() {
+        TimerWheel.Timeout<String> timeout = wheel.schedule("c", 50);
+        wheel.schedule("d", 50);
+        timeout.cancel();
+
+        wheel.advance(200, fired);
+        fired.expect("d");
+    }
+
+    /**
+     * Mirrors ExpiringMap#tick(): an element whose deadline moved while it was scheduled goes back into the wheel
+     * instead of expiring.
+     */
+    @Test
+    public void shouldRescheduleWhenDeadlineMoved() {
+        final TimerWheel<long[]> wheel = new TimerWheel<long[]>(TICK, BUCKETS, 0);
+        final long[] deadline = {30};
+        final long[] now = {0};
+        final List<Long> expiredAt = new ArrayList<Long>();
+
+        wheel.schedule(deadline, deadline[0]);
+        Consumer<long[]> tick = new Consumer<long[]>() {
+            @Override
+            public void accept(long[] element) {
+                if (element[0] > now[0])
+                    wheel.schedule(element, element[0]);
+                else
+                    expiredAt.add(now[0]);
+            }
+        };
+
+        for (now[0] = 0; now[0] <= 200; now[0] += TICK) {
+            // accessed twice before the deadline, each time extending it by 50ns
+            if (now[0] == 20 || now[0] == 60)
+                deadline[0] = now[0] + 50;
+            wheel.advance(now[0], tick);
+        }
+
+        assertEquals(Collections.singletonList(110L), expiredAt);
+    }
+
+    @Test
+    public void shouldFireEverythingAfterLongGap() {
+        wheel.schedule("e", 5);
+        wheel.schedule("f", 45);
+        wheel.schedule("g", 170);
+        wheel.schedule("h", 1_000);
+
+        wheel.advance(500, fired);
+        fired.expect("e", "f", "g");
+        wheel.advance(999, fired);
+        fired.expect();
+        wheel.advance(1_000, fired);
+        fired.expect("h");
+    }
+
+    @Test
+    public void shouldFirePastDeadlinesOnNextAdvance() {
+        wheel.advance(100, fired);
+        wheel.schedule("i", 20);
+
+        wheel.advance(100, fired);
+        fired.expect();
+        wheel.advance(110, fired);
+        fired.expect("i");
+    }
+
+    private static final class Recorder implements Consumer<String> {
+        private final List<String> fired = new ArrayList<String>();
+
+        @Override
+        public void accept(String element) {
+            fired.add(element);
+        }
+
+        void expect(String... expected) {
+            List<String> actual = new ArrayList<String>(fired);
+            fired.clear();
+            assertEquals(Arrays.asList(expected), actual);
+        }
+    }
+}